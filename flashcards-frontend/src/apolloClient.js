@@ -1,11 +1,20 @@
 import { ApolloClient, InMemoryCache, createHttpLink } from '@apollo/client';
 import { setContext } from '@apollo/client/link/context';
+import { createPersistedQueryLink } from '@apollo/client/link/persisted-queries';
 
 // Создаём http-ссылку на GraphQL endpoint
 const httpLink = createHttpLink({
     uri: 'http://localhost:8080/graphql',
 });
 
+// Automatic Persisted Queries: вместо текста запроса отправляется его SHA-256,
+// полный текст — только если сервер такого хеша ещё не видел
+const sha256 = async (query) => {
+    const digest = await crypto.subtle.digest('SHA-256', new TextEncoder().encode(query));
+    return Array.from(new Uint8Array(digest), (b) => b.toString(16).padStart(2, '0')).join('');
+};
+const persistedQueryLink = createPersistedQueryLink({ sha256 });
+
 // Добавляем заголовок авторизации (если есть токен)
 const authLink = setContext((_, { headers }) => {
     const token = localStorage.getItem('token');
@@ -19,7 +28,7 @@ const authLink = setContext((_, { headers }) => {
 
 // Создаём Apollo Client
 const client = new ApolloClient({
-    link: authLink.concat(httpLink),
+    link: authLink.concat(persistedQueryLink).concat(httpLink),
     cache: new InMemoryCache(),
 });
 
@@ -1,4 +1,4 @@
-import React, { useState, useMemo } from 'react';
+import React, { useState, useMemo, useEffect } from 'react';
 import { Container, Row, Col, Table, Form, Button, Spinner } from 'react-bootstrap';
 import { useQuery, gql } from '@apollo/client';
 import { Link } from 'react-router-dom';
@@ -21,20 +21,65 @@ const GET_COLLECTIONS = gql`
     }
 `;
 
+// Карточки колоды загружаются страницами по PAGE_SIZE (курсор — endCursor предыдущей страницы)
+const PAGE_SIZE = 50;
+
 const GET_CARDS_FOR_EDIT = gql`
-    query GetCardsForEdit($collectionId: ID!) {
-        cardsByCollectionId(collectionId: $collectionId) {
-            id
-            text
-            createdAt
-            collection {
-                id
-                name
+    query GetCardsForEdit($collectionId: ID!, $first: Int, $after: String) {
+        cards(collectionId: $collectionId, first: $first, after: $after) {
+            totalCount
+            edges {
+                cursor
+                node {
+                    id
+                    text
+                    createdAt
+                    collection {
+                        id
+                        name
+                    }
+                }
+            }
+            pageInfo {
+                hasNextPage
+                endCursor
             }
         }
     }
 `;
 
+// Полнотекстовый поиск на сервере (по релевантности), snippet — фрагмент с <mark>…</mark>
+const SEARCH_CARDS = gql`
+    query SearchCards($query: String!, $collectionId: ID, $first: Int, $after: String) {
+        searchCards(query: $query, collectionId: $collectionId, first: $first, after: $after) {
+            edges {
+                cursor
+                snippet
+                node {
+                    id
+                    text
+                    createdAt
+                    collection {
+                        id
+                        name
+                    }
+                }
+            }
+            pageInfo {
+                hasNextPage
+                endCursor
+            }
+        }
+    }
+`;
+
+// Фрагмент с подсветкой: текст между <mark> и </mark> выделяется, остальное выводится как есть
+function Highlighted({ snippet }) {
+    return snippet.split(/<mark>(.*?)<\/mark>/s).map((part, i) =>
+        i % 2 === 1 ? <mark key={i}>{part}</mark> : <React.Fragment key={i}>{part}</React.Fragment>
+    );
+}
+
 // Функция для получения идентификатора пользователя.
 // Если у вас уже есть реализация декодирования токена, можете использовать её.
 // Здесь для примера просто используем localStorage.
@@ -58,6 +103,13 @@ const EditPage = () => {
     const [sortColumn, setSortColumn] = useState(null); // Возможные значения: "Колода", "Дата создания", "Текст"
     const [sortOrder, setSortOrder] = useState('asc'); // 'asc' или 'desc'
     const [searchFilter, setSearchFilter] = useState('');
+    const [searchQuery, setSearchQuery] = useState('');
+
+    // Запрос на сервер уходит, когда пользователь перестал печатать
+    useEffect(() => {
+        const timer = setTimeout(() => setSearchQuery(searchFilter.trim()), 300);
+        return () => clearTimeout(timer);
+    }, [searchFilter]);
 
     // --- Запрос списка колод пользователя ---
     const {
@@ -75,11 +127,50 @@ const EditPage = () => {
         error: errorCards,
         data: dataCards,
         refetch: refetchCards,
+        fetchMore: fetchMoreCards,
     } = useQuery(GET_CARDS_FOR_EDIT, {
-        variables: { collectionId: activeCollectionId },
+        variables: { collectionId: activeCollectionId, first: PAGE_SIZE },
         skip: !activeCollectionId,
     });
 
+    // --- Поиск по карточкам выбранной колоды ---
+    const {
+        loading: loadingSearch,
+        error: errorSearch,
+        data: dataSearch,
+        fetchMore: fetchMoreSearch,
+    } = useQuery(SEARCH_CARDS, {
+        variables: { query: searchQuery, collectionId: activeCollectionId, first: PAGE_SIZE },
+        skip: !searchQuery || !activeCollectionId,
+    });
+
+    // Что сейчас в таблице: результаты поиска или страницы колоды
+    const searching = Boolean(searchQuery);
+    const connection = searching ? dataSearch?.searchCards : dataCards?.cards;
+
+    const [loadingMore, setLoadingMore] = useState(false);
+
+    // Подгрузка следующей страницы: рёбра дописываются к уже загруженным
+    const handleLoadMore = () => {
+        const pageInfo = connection?.pageInfo;
+        if (!pageInfo?.hasNextPage) return;
+        const field = searching ? 'searchCards' : 'cards';
+        const fetchMore = searching ? fetchMoreSearch : fetchMoreCards;
+        setLoadingMore(true);
+        fetchMore({
+            variables: { after: pageInfo.endCursor },
+            updateQuery: (prev, { fetchMoreResult }) => {
+                if (!fetchMoreResult) return prev;
+                return {
+                    [field]: {
+                        ...fetchMoreResult[field],
+                        edges: [...prev[field].edges, ...fetchMoreResult[field].edges],
+                    },
+                };
+            },
+        }).finally(() => setLoadingMore(false));
+    };
+
     // Сортировка списка колод по id (сравниваем как числа)
     const collections = useMemo(() => {
         if (!dataCollections || !dataCollections.collectionsByUserId) return [];
@@ -90,15 +181,9 @@ const EditPage = () => {
 
     // Центр. колонка: фильтрация и сортировка карточек
     const processedCards = useMemo(() => {
-        if (!dataCards || !dataCards.cardsByCollectionId) return [];
-        let cards = dataCards.cardsByCollectionId;
-
-        // Фильтрация по строке поиска (ищем в тексте, без учета регистра)
-        if (searchFilter) {
-            cards = cards.filter(card =>
-                card.text.toLowerCase().includes(searchFilter.toLowerCase())
-            );
-        }
+        if (!connection) return [];
+        // результаты поиска приходят уже отсортированными по релевантности
+        let cards = connection.edges.map(edge => ({ ...edge.node, snippet: edge.snippet }));
 
         // Сортировка по выбранному столбцу
         if (sortColumn) {
@@ -120,7 +205,7 @@ const EditPage = () => {
             });
         }
         return cards;
-    }, [dataCards, searchFilter, sortColumn, sortOrder]);
+    }, [connection, sortColumn, sortOrder]);
 
     // Обработчик сортировки по клику на ячейку шапки таблицы
     const handleSort = (columnName) => {
@@ -237,9 +322,11 @@ const EditPage = () => {
                                 <td>{card.collection?.name}</td>
                                 <td>{new Date(card.createdAt).toLocaleString()}</td>
                                 <td>
-                                    {card.text.length > 50
-                                        ? card.text.slice(0, 50) + '...'
-                                        : card.text}
+                                    {card.snippet
+                                        ? <Highlighted snippet={card.snippet} />
+                                        : card.text.length > 50
+                                            ? card.text.slice(0, 50) + '...'
+                                            : card.text}
                                 </td>
                                 <td>
                                     <Button
@@ -257,6 +344,19 @@ const EditPage = () => {
                         ))}
                         </tbody>
                     </Table>
+                    {searching && loadingSearch && <Spinner animation="border" size="sm" />}
+                    {searching && errorSearch && <div>Ошибка поиска: {errorSearch.message}</div>}
+                    {connection?.pageInfo.hasNextPage && (
+                        <div className="text-center mb-3">
+                            <Button variant="outline-primary" onClick={handleLoadMore} disabled={loadingMore}>
+                                {loadingMore
+                                    ? <Spinner animation="border" size="sm" />
+                                    : searching
+                                        ? 'Показать ещё'
+                                        : `Показать ещё (${connection.edges.length} из ${connection.totalCount})`}
+                            </Button>
+                        </div>
+                    )}
                 </Col>
 
                 {/* Правая колонка: просмотр активной карточки (если выбрана) */}
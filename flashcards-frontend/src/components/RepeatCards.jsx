@@ -1,7 +1,7 @@
-import React, { useState, useEffect, useMemo, useCallback } from 'react';
+import React, { useState, useEffect, useMemo, useCallback, useRef } from 'react';
 import CardCounter from './CardCounter';
 import { Container, Button, Spinner, Row, Col } from 'react-bootstrap';
-import { gql, useQuery, useMutation } from '@apollo/client';
+import { gql, useMutation } from '@apollo/client';
 import { useParams, Link } from 'react-router-dom';
 
 import ReactMarkdown from 'react-markdown';
@@ -19,29 +19,40 @@ import { processMarkedText } from '../utils/highlightLogic';
 
 /* ---------- GraphQL ---------- */
 
-const START_LEARNING = gql`
-    query StartLearning($collectionId: ID!) {
-        startLearning(collectionId: $collectionId) {
+const OPEN_SESSION = gql`
+    mutation OpenSession($collectionId: ID!) {
+        openSession(collectionId: $collectionId) {
             id
-            text
-            queue
-            stepsLeft
-            createdAt
-            newIntervals {
-                answer
-                interval
-                unit
+        }
+    }
+`;
+
+const NEXT_CARD = gql`
+    mutation NextCard($sessionId: ID!) {
+        nextCard(sessionId: $sessionId) {
+            card {
+                id
+                text
+                queue
+                newIntervals {
+                    answer
+                    interval
+                    unit
+                }
             }
+            newLeft
+            learningLeft
+            reviewLeft
+            waitSeconds
         }
     }
 `;
 
 const REVIEW_CARD = gql`
-    mutation ReviewCard($cardId: ID!, $answer: ReviewAnswer!) {
-        reviewCard(cardId: $cardId, answer: $answer) {
+    mutation ReviewCard($cardId: ID!, $answer: ReviewAnswer!, $timeTakenMs: Int, $idempotencyKey: String) {
+        reviewCard(cardId: $cardId, answer: $answer, timeTakenMs: $timeTakenMs, idempotencyKey: $idempotencyKey) {
             id
             queue
-            newIntervals { answer interval unit }
         }
     }
 `;
@@ -51,45 +62,51 @@ const REVIEW_CARD = gql`
 const RepeatCards = () => {
     const { collectionId } = useParams();
 
-    /* --- Запрашиваем список карточек --- */
-    const { loading, error, data, refetch } = useQuery(START_LEARNING, {
-        variables: { collectionId },
-        fetchPolicy: 'network-only',
-    });
-
-    /* --- Индекс текущей карточки --- */
-    const [idx, setIdx] = useState(0);
-
-    /* --- Мутация Review --- */
-    const [reviewCard] = useMutation(REVIEW_CARD, {
-        onCompleted: () => refetch().then(() => setIdx(0))
-    });
-
-    /* --- Сортировка карточек --- */
-    const cards = useMemo(() => {
-        if (!data?.startLearning) return [];
-        return [...data.startLearning].sort((a, b) => {
-            if (a.queue === 0 && b.queue !== 0) return -1;
-            if (a.queue !== 0 && b.queue === 0) return 1;
-            return new Date(a.createdAt) - new Date(b.createdAt);
-        });
-    }, [data]);
+    /* --- Учебная сессия: сервер держит очередь, за запрос приходит одна карточка --- */
+    const [sessionId, setSessionId] = useState(null);
+    const [step, setStep] = useState(null);
+    const [error, setError] = useState(null);
+
+    const [openSession] = useMutation(OPEN_SESSION);
+    const [nextCard] = useMutation(NEXT_CARD);
+    const [reviewCard] = useMutation(REVIEW_CARD);
+
+    const next = useCallback((id) => nextCard({ variables: { sessionId: id } })
+        .then(({ data }) => setStep(data.nextCard))
+        .catch(setError), [nextCard]);
 
-    const finished = !loading && cards.length === 0;
+    useEffect(() => {
+        openSession({ variables: { collectionId } })
+            .then(({ data }) => {
+                setSessionId(data.openSession.id);
+                return next(data.openSession.id);
+            })
+            .catch(setError);
+    }, [collectionId, openSession, next]);
+
+    /* --- Learning-карточка ещё не подошла: ждём её и спрашиваем снова --- */
+    useEffect(() => {
+        if (!step || step.card || step.waitSeconds == null) return;
+        const timer = setTimeout(() => next(sessionId), (step.waitSeconds + 1) * 1000);
+        return () => clearTimeout(timer);
+    }, [step, sessionId, next]);
+
+    const loading = !step && !error;
+    const current = step?.card;
+    const finished = step && !current && step.waitSeconds == null;
 
     /* --- Счётчик оставшихся --- */
     const remaining = useMemo(() => ({
-        new: cards.filter(c => c.queue === 0).length,
-        learning: cards.filter(c => c.queue === 1 || c.queue === 3).length,
-        review: cards.filter(c => c.queue === 2).length,
-    }), [cards]);
+        new: step?.newLeft ?? 0,
+        learning: step?.learningLeft ?? 0,
+        review: step?.reviewLeft ?? 0,
+    }), [step]);
 
     /* ---- Интервалы для кнопок ---- */
     const intervals = useMemo(() => {
-        const cur = cards[idx];
-        if (!cur) return {};
+        if (!current) return {};
         const map = {};
-        cur.newIntervals.forEach(({ answer, interval, unit }) => {
+        current.newIntervals.forEach(({ answer, interval, unit }) => {
             let label;
             if (unit === 'MIN') {
                 label = interval === 0 ? '<1\u202Fмин' : `<${interval}\u202Fмин`;
@@ -99,22 +116,26 @@ const RepeatCards = () => {
             map[answer] = label;
         });
         return map;
-    }, [cards, idx]);
+    }, [current]);
 
     /* ---------- Cloze‑логика ---------- */
     const [displayText, setDisplayText] = useState('');
     const [hidden, setHidden] = useState([]);
     const [revealIdx, setRevealIdx] = useState(0);
 
+    /* --- Момент показа текущей карточки (для журнала повторений) --- */
+    const shownAt = useRef(Date.now());
+
     useEffect(() => {
-        if (cards[idx]) {
+        if (current) {
+            shownAt.current = Date.now();
             const buf = [];
-            const processed = processMarkedText(cards[idx].text, true, buf);
+            const processed = processMarkedText(current.text, true, buf);
             setDisplayText(processed);
             setHidden(buf);
             setRevealIdx(0);
         }
-    }, [cards, idx]);
+    }, [current]);
 
     const handleTab = useCallback((e) => {
         if (e.key !== 'Tab') return;
@@ -126,7 +147,12 @@ const RepeatCards = () => {
 
     /* ---------- Оценка ---------- */
     const answer = (ans) => {
-        reviewCard({ variables: { cardId: cards[idx].id, answer: ans } });
+        const timeTakenMs = Date.now() - shownAt.current;
+        // ключ попытки: повторная отправка той же оценки не применится дважды
+        const idempotencyKey = crypto.randomUUID();
+        reviewCard({ variables: { cardId: current.id, answer: ans, timeTakenMs, idempotencyKey } })
+            .then(() => next(sessionId))
+            .catch(setError);
     };
 
     /* ---------- UI ---------- */
@@ -139,8 +165,12 @@ const RepeatCards = () => {
             <Link to="/">На главную</Link>
         </Container>
     );
-
-    const current = cards[idx];
+    if (!current) return (
+        <Container className="mt-4 text-center">
+            <h4>Следующая карточка — через {Math.ceil(step.waitSeconds / 60)}&#8239;мин</h4>
+            <CardCounter total={remaining} />
+        </Container>
+    );
 
     return (
         <Container fluid className="d-flex flex-column flex-grow-1 p-0">
@@ -187,7 +217,7 @@ const RepeatCards = () => {
 
                     <div className="text-center mb-3">
                         <Button variant="outline-secondary" size="sm"
-                                onClick={() => setIdx(i => (i + 1) % cards.length)}>
+                                onClick={() => next(sessionId)}>
                             Пропустить
                         </Button>
                     </div>
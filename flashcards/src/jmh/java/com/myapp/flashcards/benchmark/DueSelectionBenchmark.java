@@ -0,0 +1,70 @@
+package com.myapp.flashcards.benchmark;
+
+import com.myapp.flashcards.model.Card;
+import com.myapp.flashcards.srs.SrsConfig;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отбор карточек к показу в памяти по условию findDueCards — так getDueCards работал до переноса
+ * отбора в SQL. Продакшен этот путь больше не выполняет: бенчмарк — точка отсчёта для сравнения
+ * с запросом по индексу (collection_id, queue, due). Одна операция обходит всю колоду.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DueSelectionBenchmark {
+
+  @Param({"1000", "100000", "1000000"})
+  int deckSize;
+
+  private Card[] deck;
+  private int nowSec;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    deck = SyntheticDeck.generate(deckSize, 42);
+    nowSec = (int) (Instant.now().getEpochSecond() + SrsConfig.LEARN_AHEAD_SEC);
+  }
+
+  @Benchmark
+  public void countDue(Blackhole bh) {
+    int due = 0;
+    for (Card c : deck) {
+      if (isDue(c, SyntheticDeck.TODAY_INDEX, nowSec)) due++;
+    }
+    bh.consume(due);
+  }
+
+  @Benchmark
+  public List<Card> selectDueSortedLimited() {
+    List<Card> due = new ArrayList<>();
+    for (Card c : deck) {
+      if (isDue(c, SyntheticDeck.TODAY_INDEX, nowSec)) due.add(c);
+    }
+    due.sort(Comparator
+            .comparingInt((Card c) -> c.getQueue() == 0 ? 1 : c.getQueue())
+            .thenComparing(Card::getCreatedAt)
+            .thenComparing(Card::getId));
+    return due.size() > SrsConfig.DUE_CARDS_LIMIT ? due.subList(0, SrsConfig.DUE_CARDS_LIMIT) : due;
+  }
+
+  /* То же условие, что и в CardRepository.findDueCards: today — epoch day, nowSec — с учётом learn-ahead */
+  private static boolean isDue(Card card, int today, int nowSec) {
+    return switch (card.getQueue()) {
+      case 0 -> true;
+      case 1, 3 -> card.getDue() <= nowSec;
+      case 2 -> card.getDue() <= today;
+      default -> false;
+    };
+  }
+}
@@ -0,0 +1,58 @@
+package com.myapp.flashcards.benchmark;
+
+import com.myapp.flashcards.model.Card;
+import com.myapp.flashcards.model.ReviewAnswer;
+import com.myapp.flashcards.srs.DefaultSrsService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Оценка карточки (processReview) и предпросмотр интервалов (previewIntervals)
+ * на колодах разного размера. Одна операция — одна карточка.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SrsSchedulerBenchmark {
+
+  private static final ReviewAnswer[] ANSWERS = ReviewAnswer.values();
+
+  @Param({"1000", "100000", "1000000"})
+  int deckSize;
+
+  private DefaultSrsService srs;
+  private Card[] deck;
+  private Card scratch;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    // processReview и previewIntervals не обращаются к репозиториям
+    srs = new DefaultSrsService(null);
+    deck = SyntheticDeck.generate(deckSize, 42);
+    scratch = new Card();
+  }
+
+  @Benchmark
+  public Card grade() {
+    Card source = deck[next];
+    ReviewAnswer answer = ANSWERS[next & 3];
+    next = next + 1 == deckSize ? 0 : next + 1;
+
+    // колода не должна «уплывать» от исходной смеси очередей — оцениваем копию
+    SyntheticDeck.copyState(source, scratch);
+    srs.processReview(scratch, answer);
+    return scratch;
+  }
+
+  @Benchmark
+  public Object previewIntervals() {
+    Card card = deck[next];
+    next = next + 1 == deckSize ? 0 : next + 1;
+    return srs.previewIntervals(card);
+  }
+}
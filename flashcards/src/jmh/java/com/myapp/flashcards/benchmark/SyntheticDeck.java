@@ -0,0 +1,78 @@
+package com.myapp.flashcards.benchmark;
+
+import com.myapp.flashcards.model.Card;
+import com.myapp.flashcards.model.Collection;
+import com.myapp.flashcards.srs.SrsConfig;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+
+/**
+ * Синтетическая колода с реалистичной смесью очередей:
+ * 30% new, 10% learning, 55% review, 5% relearn.
+ * Review-карты разбросаны по due вокруг «сегодня», learning — вокруг текущего момента.
+ */
+final class SyntheticDeck {
+
+  static final int TODAY_INDEX = (int) LocalDate.now().toEpochDay();   // review-due — epoch day
+  private static final int AGE_DAYS = 400;                              // коллекция создана 400 дней назад
+
+  private SyntheticDeck() {
+  }
+
+  static Card[] generate(int size, long seed) {
+    SplittableRandom rnd = new SplittableRandom(seed);
+    Collection coll = new Collection();
+    coll.setId(1);
+    coll.setName("bench");
+    coll.setCreatedAt(LocalDateTime.now().minusDays(AGE_DAYS));
+
+    int nowSec = (int) Instant.now().getEpochSecond();
+    Card[] deck = new Card[size];
+    for (int i = 0; i < size; i++) {
+      Card c = new Card();
+      c.setId(i + 1);
+      c.setText("card " + i);
+      c.setCreatedAt(coll.getCreatedAt().plusDays(rnd.nextInt(AGE_DAYS)));
+      c.setFactor(SrsConfig.INITIAL_FACTOR - 150 * rnd.nextInt(5));
+      c.setReps(rnd.nextInt(30));
+      c.setLapses(rnd.nextInt(4));
+
+      int roll = rnd.nextInt(100);
+      if (roll < 30) {                 // new
+        setState(c, 0, 0, 0, 0, SrsConfig.INITIAL_STEPS);
+      } else if (roll < 40) {          // learning
+        setState(c, 1, 1, nowSec + rnd.nextInt(-1200, 1200), 0, 1 + rnd.nextInt(2));
+      } else if (roll < 95) {          // review
+        int ivl = 1 + rnd.nextInt(120);
+        setState(c, 2, 2, TODAY_INDEX + rnd.nextInt(-30, 60), ivl, 0);
+      } else {                         // relearn
+        setState(c, 1, 3, nowSec + rnd.nextInt(-1200, 1200), 1 + rnd.nextInt(30), 2);
+      }
+      deck[i] = c;
+    }
+    return deck;
+  }
+
+  static void copyState(Card from, Card to) {
+    to.setCreatedAt(from.getCreatedAt());
+    to.setType(from.getType());
+    to.setQueue(from.getQueue());
+    to.setDue(from.getDue());
+    to.setIvl(from.getIvl());
+    to.setFactor(from.getFactor());
+    to.setReps(from.getReps());
+    to.setLapses(from.getLapses());
+    to.setStepsLeft(from.getStepsLeft());
+  }
+
+  private static void setState(Card c, int type, int queue, int due, int ivl, int stepsLeft) {
+    c.setType(type);
+    c.setQueue(queue);
+    c.setDue(due);
+    c.setIvl(ivl);
+    c.setStepsLeft(stepsLeft);
+  }
+}
@@ -0,0 +1,61 @@
+package com.myapp.flashcards.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Минимальный клиент API: вход через /api/auth/login и запросы к /graphql с JWT.
+ * Ответ с непустым errors или статусом не 200 — исключение, оно считается ошибкой операции.
+ */
+final class GraphQLClient {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+  private final HttpClient http;
+  private final ObjectMapper mapper;
+  private final URI graphqlUri;
+  private final URI loginUri;
+  private String token;
+
+  GraphQLClient(HttpClient http, ObjectMapper mapper, String baseUrl) {
+    this.http = http;
+    this.mapper = mapper;
+    this.graphqlUri = URI.create(baseUrl + "/graphql");
+    this.loginUri = URI.create(baseUrl + "/api/auth/login");
+  }
+
+  void login(String email, String password) throws IOException, InterruptedException {
+    JsonNode body = post(loginUri, Map.of("email", email, "password", password), null);
+    token = body.path("token").asText(null);
+    if (token == null) throw new IOException("No token in login response");
+  }
+
+  /** Выполняет операцию и возвращает data. */
+  JsonNode execute(String query, Map<String, Object> variables) throws IOException, InterruptedException {
+    JsonNode body = post(graphqlUri, Map.of("query", query, "variables", variables), token);
+    JsonNode errors = body.path("errors");
+    if (errors.isArray() && !errors.isEmpty()) {
+      throw new IOException(errors.get(0).path("message").asText());
+    }
+    return body.path("data");
+  }
+
+  private JsonNode post(URI uri, Object payload, String bearer) throws IOException, InterruptedException {
+    HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+            .timeout(TIMEOUT)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(payload)));
+    if (bearer != null) request.header("Authorization", "Bearer " + bearer);
+    HttpResponse<byte[]> response = http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    if (response.statusCode() != 200) throw new IOException("HTTP " + response.statusCode());
+    return mapper.readTree(response.body());
+  }
+}
@@ -0,0 +1,198 @@
+package com.myapp.flashcards.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Задержки и ошибки по операциям. Гистограммы HdrHistogram в микросекундах (до минуты, 3 значащие цифры);
+ * пока идёт прогрев, измерения не записываются.
+ * Ошибки считаются и по сообщениям (первые MAX_ERROR_MESSAGES разных, остальные — одной строкой),
+ * первые PRINTED_ERRORS печатаются в stderr сразу, включая прогрев.
+ */
+final class LatencyStats {
+
+  enum Operation {
+    LOGIN("login"),
+    COLLECTIONS("collectionsByUserId"),
+    OPEN_SESSION("openSession"),
+    NEXT_CARD("nextCard"),
+    REVIEW_CARD("reviewCard");
+
+    final String label;
+
+    Operation(String label) {
+      this.label = label;
+    }
+  }
+
+  private static final long MAX_LATENCY_US = TimeUnit.MINUTES.toMicros(1);
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+  private static final String[] PERCENTILE_KEYS = {"p50Ms", "p90Ms", "p99Ms", "p999Ms"};
+  private static final int MAX_ERROR_MESSAGES = 20;
+  private static final int PRINTED_ERRORS = 10;
+  private static final String OTHER_ERRORS = "(other messages)";
+
+  private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+  private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+  private final Map<String, LongAdder> errorMessages = new ConcurrentHashMap<>();
+  private final AtomicInteger printedErrors = new AtomicInteger();
+  private volatile boolean recording;
+  private long startedNanos;
+
+  LatencyStats() {
+    for (Operation op : Operation.values()) {
+      latencies.put(op, new ConcurrentHistogram(MAX_LATENCY_US, 3));
+      errors.put(op, new LongAdder());
+    }
+  }
+
+  void record(Operation op, long startNanos) {
+    if (!recording) return;
+    long us = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+    latencies.get(op).recordValue(Math.min(us, MAX_LATENCY_US));
+  }
+
+  void error(Operation op, Exception e) {
+    if (recording) errors.get(op).increment();
+    message(op.label, e);
+  }
+
+  /** Ошибка сессии вне операций (например, неожиданный ответ сервера). */
+  void sessionError(Exception e) {
+    message("session", e);
+  }
+
+  private void message(String where, Exception e) {
+    String message = where + ": " + describe(e);
+    if (printedErrors.getAndIncrement() < PRINTED_ERRORS) System.err.println("Error in " + message);
+    if (!recording) return;
+    LongAdder count = errorMessages.get(message);
+    if (count == null) {
+      count = errorMessages.size() < MAX_ERROR_MESSAGES
+              ? errorMessages.computeIfAbsent(message, k -> new LongAdder())
+              : errorMessages.computeIfAbsent(OTHER_ERRORS, k -> new LongAdder());
+    }
+    count.increment();
+  }
+
+  /* Класс и сообщение ошибки; у сетевых ошибок HttpClient сообщение бывает только у причины */
+  private static String describe(Throwable e) {
+    Throwable t = e;
+    while (t.getMessage() == null && t.getCause() != null) t = t.getCause();
+    return e.getClass().getSimpleName() + (t.getMessage() == null ? "" : ": " + t.getMessage());
+  }
+
+  /** Конец прогрева: всё записанное до сих пор отбрасывается. */
+  void start() {
+    latencies.values().forEach(Histogram::reset);
+    errors.values().forEach(LongAdder::reset);
+    errorMessages.clear();
+    startedNanos = System.nanoTime();
+    recording = true;
+  }
+
+  /** Конец измерения; возвращает итог в виде summary.json. */
+  ObjectNode stop(ObjectMapper mapper, LoadTestOptions options) {
+    recording = false;
+    double seconds = (System.nanoTime() - startedNanos) / 1e9;
+    ObjectNode summary = mapper.createObjectNode();
+    summary.put("durationSec", Math.round(seconds * 10) / 10.0);
+    summary.put("clients", options.clients());
+    summary.put("users", options.users());
+    summary.put("cardsPerCollection", options.cards());
+    ObjectNode ops = summary.putObject("operations");
+    for (Operation op : Operation.values()) {
+      Histogram h = latencies.get(op);
+      ObjectNode o = ops.putObject(op.label);
+      o.put("count", h.getTotalCount());
+      o.put("errors", errors.get(op).sum());
+      o.put("throughput", Math.round(h.getTotalCount() / seconds * 10) / 10.0);
+      for (int i = 0; i < PERCENTILES.length; i++) {
+        o.put(PERCENTILE_KEYS[i], ms(h.getValueAtPercentile(PERCENTILES[i])));
+      }
+      o.put("maxMs", ms(h.getMaxValue()));
+    }
+    ObjectNode messages = summary.putObject("errorMessages");
+    errorMessages.entrySet().stream()
+            .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+            .forEach(e -> messages.put(e.getKey(), e.getValue().sum()));
+    return summary;
+  }
+
+  static void print(JsonNode summary, PrintStream out) {
+    out.printf("%n%-20s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+            "operation", "count", "errors", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+    summary.path("operations").fields().forEachRemaining(e -> {
+      JsonNode o = e.getValue();
+      out.printf("%-20s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", e.getKey(),
+              o.path("count").asLong(), o.path("errors").asLong(), o.path("throughput").asDouble(),
+              o.path("p50Ms").asDouble(), o.path("p90Ms").asDouble(), o.path("p99Ms").asDouble(),
+              o.path("p999Ms").asDouble(), o.path("maxMs").asDouble());
+    });
+    JsonNode messages = summary.path("errorMessages");
+    if (!messages.isEmpty()) {
+      out.printf("%nErrors by message:%n");
+      messages.fields().forEachRemaining(e -> out.printf("%9d  %s%n", e.getValue().asLong(), e.getKey()));
+    }
+  }
+
+  /** Полные распределения по операциям (в миллисекундах) — для HdrHistogram plotter. */
+  void writeHistograms(Path dir) throws IOException {
+    Files.createDirectories(dir);
+    for (Operation op : Operation.values()) {
+      try (PrintStream out = new PrintStream(Files.newOutputStream(dir.resolve(op.label + ".hgrm")))) {
+        latencies.get(op).outputPercentileDistribution(out, 1000.0);
+      }
+    }
+  }
+
+  /**
+   * Сравнение с прошлым прогоном: p99 операции вырос или пропускная способность упала
+   * больше чем на maxRegression. Ошибки, которых в baseline не было, — тоже регрессия.
+   * Операции baseline, которых в прогоне больше нет, не сравниваются.
+   *
+   * @return описания регрессий, пустой список — прогон не хуже baseline
+   */
+  static List<String> compare(JsonNode summary, JsonNode baseline, double maxRegression) {
+    List<String> regressions = new ArrayList<>();
+    baseline.path("operations").fields().forEachRemaining(e -> {
+      JsonNode before = e.getValue();
+      JsonNode after = summary.path("operations").path(e.getKey());
+      if (before.path("count").asLong() == 0 || after.isMissingNode()) return;
+      double p99Before = before.path("p99Ms").asDouble();
+      double p99After = after.path("p99Ms").asDouble();
+      if (p99After > p99Before * (1 + maxRegression)) {
+        regressions.add(String.format("%s: p99 %.2f ms -> %.2f ms", e.getKey(), p99Before, p99After));
+      }
+      double tputBefore = before.path("throughput").asDouble();
+      double tputAfter = after.path("throughput").asDouble();
+      if (tputAfter < tputBefore * (1 - maxRegression)) {
+        regressions.add(String.format("%s: throughput %.1f -> %.1f ops/s", e.getKey(), tputBefore, tputAfter));
+      }
+      if (before.path("errors").asLong() == 0 && after.path("errors").asLong() > 0) {
+        regressions.add(String.format("%s: %d errors", e.getKey(), after.path("errors").asLong()));
+      }
+    });
+    return regressions;
+  }
+
+  private static double ms(long us) {
+    return Math.round(us / 10.0) / 100.0;
+  }
+}
@@ -0,0 +1,148 @@
+package com.myapp.flashcards.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.myapp.flashcards.loadtest.LatencyStats.Operation;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Один виртуальный клиент: учебные сессии за своего пользователя подряд, пока не истечёт прогон.
+ * Сессия — как у фронтенда: вход, список коллекций со счётчиками, openSession по случайной коллекции
+ * и до reviewsPerSession пар nextCard + reviewCard; сессия кончается раньше, если показывать нечего.
+ * Ошибка операции засчитывается ей и завершает сессию; следующая начинается с входа.
+ * Ошибки считаются по сообщениям (см. LatencyStats).
+ */
+final class LearnerSession implements Runnable {
+
+  private static final String COLLECTIONS = """
+          query($userId: ID!) {
+            collectionsByUserId(userId: $userId) { id name countCards newCount learningCount reviewCount }
+          }""";
+  private static final String OPEN_SESSION = """
+          mutation($collectionId: ID!) {
+            openSession(collectionId: $collectionId) { id newLeft learningLeft reviewLeft }
+          }""";
+  private static final String NEXT_CARD = """
+          mutation($sessionId: ID!) {
+            nextCard(sessionId: $sessionId) { card { id text queue due } waitSeconds }
+          }""";
+  private static final String REVIEW_CARD = """
+          mutation($cardId: ID!, $answer: ReviewAnswer!, $timeTakenMs: Int, $idempotencyKey: String) {
+            reviewCard(cardId: $cardId, answer: $answer, timeTakenMs: $timeTakenMs, idempotencyKey: $idempotencyKey) {
+              id queue due ivl
+            }
+          }""";
+
+  /* Распределение ответов, близкое к реальному: в основном GOOD */
+  private static final String[] ANSWERS = {"AGAIN", "HARD", "GOOD", "EASY"};
+  private static final int[] ANSWER_WEIGHTS = {10, 15, 65, 10};
+
+  private static final long ERROR_PAUSE_MS = 100;
+
+  private final GraphQLClient client;
+  private final Seeder.SeededUser user;
+  private final LoadTestOptions options;
+  private final LatencyStats stats;
+  private volatile boolean stopped;
+
+  LearnerSession(GraphQLClient client, Seeder.SeededUser user, LoadTestOptions options, LatencyStats stats) {
+    this.client = client;
+    this.user = user;
+    this.options = options;
+    this.stats = stats;
+  }
+
+  void stop() {
+    stopped = true;
+  }
+
+  @Override
+  public void run() {
+    while (!stopped && !Thread.currentThread().isInterrupted()) {
+      try {
+        session();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (OperationFailed e) {
+        pause(ERROR_PAUSE_MS);      // уже засчитана операции
+      } catch (Exception e) {
+        stats.sessionError(e);
+        pause(ERROR_PAUSE_MS);
+      }
+    }
+  }
+
+  private void session() throws Exception {
+    call(Operation.LOGIN, () -> {
+      client.login(user.email(), LoadTestOptions.PASSWORD);
+      return null;
+    });
+    call(Operation.COLLECTIONS, () -> client.execute(COLLECTIONS, Map.of("userId", user.id())));
+
+    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+    Integer collectionId = user.collectionIds().get(rnd.nextInt(user.collectionIds().size()));
+    String sessionId = call(Operation.OPEN_SESSION, () -> client.execute(OPEN_SESSION,
+            Map.of("collectionId", collectionId)).path("openSession").path("id").asText());
+
+    for (int i = 0; i < options.reviewsPerSession(); i++) {
+      if (stopped) return;
+      JsonNode card = call(Operation.NEXT_CARD, () -> client.execute(NEXT_CARD,
+              Map.of("sessionId", sessionId)).path("nextCard").path("card"));
+      // null — на сегодня всё или learning-карточки ещё не due; ждать их клиент не будет
+      if (card.isNull() || card.isMissingNode()) return;
+      pause(options.thinkTime().toMillis());
+      Map<String, Object> variables = Map.of(
+              "cardId", card.path("id").asText(),
+              "answer", answer(rnd),
+              "timeTakenMs", 2000 + rnd.nextInt(8000),
+              "idempotencyKey", UUID.randomUUID().toString());
+      call(Operation.REVIEW_CARD, () -> client.execute(REVIEW_CARD, variables));
+    }
+  }
+
+  private <T> T call(Operation op, Call<T> call) throws Exception {
+    long start = System.nanoTime();
+    try {
+      T result = call.run();
+      stats.record(op, start);
+      return result;
+    } catch (InterruptedException e) {
+      throw e;
+    } catch (Exception e) {
+      stats.error(op, e);
+      throw new OperationFailed(e);
+    }
+  }
+
+  private static String answer(ThreadLocalRandom rnd) {
+    int r = rnd.nextInt(100);
+    for (int i = 0; i < ANSWERS.length; i++) {
+      r -= ANSWER_WEIGHTS[i];
+      if (r < 0) return ANSWERS[i];
+    }
+    return ANSWERS[ANSWERS.length - 1];
+  }
+
+  private static void pause(long millis) {
+    if (millis <= 0) return;
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @FunctionalInterface
+  private interface Call<T> {
+    T run() throws Exception;
+  }
+
+  /* Ошибка операции, уже засчитанная в LatencyStats */
+  private static final class OperationFailed extends Exception {
+    OperationFailed(Exception cause) {
+      super(cause);
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package com.myapp.flashcards.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочный прогон против запущенного приложения (mvn -Ploadtest verify, см. pom.xml).
+ * <p>
+ * Засевает пользователей в PostgreSQL ({@link Seeder}), запускает clients виртуальных клиентов
+ * ({@link LearnerSession}), после прогрева измеряет duration секунд и печатает по каждой операции
+ * пропускную способность и перцентили задержек. В out пишутся summary.json и распределения *.hgrm.
+ * С baseline=&lt;summary.json прошлого прогона&gt; прогон завершается с кодом 1, если p99 или
+ * пропускная способность какой-либо операции хуже baseline больше чем на max-regression.
+ * <p>
+ * Клиенты работают по замкнутому циклу (следующий запрос — после ответа на предыдущий):
+ * при think-ms=0 это предельная пропускная способность экземпляра при данном числе клиентов.
+ */
+public final class LoadTest {
+
+  private LoadTest() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    LoadTestOptions options = LoadTestOptions.parse(args);
+    ObjectMapper mapper = new ObjectMapper();
+
+    long seedStart = System.nanoTime();
+    List<Seeder.SeededUser> users = Seeder.seed(options);
+    long seedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seedStart);
+    if (options.seed()) {
+      System.out.printf("Seeded %d users x %d collections x %d cards in %d ms%n",
+              users.size(), options.collections(), options.cards(), seedMs);
+    } else {
+      System.out.printf("Reusing %d seeded users%n", users.size());
+    }
+
+    HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    LatencyStats stats = new LatencyStats();
+    List<LearnerSession> sessions = new ArrayList<>();
+    ExecutorService pool = Executors.newFixedThreadPool(options.clients());
+    for (int i = 0; i < options.clients(); i++) {
+      LearnerSession session = new LearnerSession(new GraphQLClient(http, mapper, options.baseUrl()),
+              users.get(i), options, stats);
+      sessions.add(session);
+      pool.execute(session);
+    }
+
+    System.out.printf("%d clients against %s: warmup %ds, measuring %ds%n",
+            options.clients(), options.baseUrl(), options.warmup().toSeconds(), options.duration().toSeconds());
+    Thread.sleep(options.warmup().toMillis());
+    stats.start();
+    Thread.sleep(options.duration().toMillis());
+    ObjectNode summary = stats.stop(mapper, options);
+
+    sessions.forEach(LearnerSession::stop);
+    pool.shutdown();
+    if (!pool.awaitTermination(1, TimeUnit.MINUTES)) pool.shutdownNow();
+
+    LatencyStats.print(summary, System.out);
+    stats.writeHistograms(options.out());
+    mapper.writerWithDefaultPrettyPrinter().writeValue(options.out().resolve("summary.json").toFile(), summary);
+    System.out.println("Report: " + options.out().toAbsolutePath());
+
+    if (options.baseline() != null) {
+      JsonNode baseline = mapper.readTree(Files.readAllBytes(options.baseline()));
+      List<String> regressions = LatencyStats.compare(summary, baseline, options.maxRegression());
+      if (!regressions.isEmpty()) {
+        System.out.println("Regressions against " + options.baseline() + ":");
+        regressions.forEach(r -> System.out.println("  " + r));
+        System.exit(1);
+      }
+      System.out.println("No regressions against " + options.baseline());
+    }
+  }
+}
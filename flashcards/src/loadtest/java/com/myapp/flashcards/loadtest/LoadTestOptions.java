@@ -0,0 +1,94 @@
+package com.myapp.flashcards.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Параметры нагрузочного прогона. Задаются аргументами name=value или --name=value (mvn: -Dloadtest.args="..."),
+ * подключение к БД по умолчанию — из тех же переменных окружения, что и у приложения.
+ *
+ * @param baseUrl          адрес запущенного приложения
+ * @param users            сколько пользователей засеять; каждый виртуальный клиент работает за своего
+ * @param collections      коллекций на пользователя
+ * @param cards            карточек в коллекции
+ * @param reviewShare      доля карточек, засеянных review с due сегодня (остальные — новые)
+ * @param clients          одновременных клиентов (не больше users)
+ * @param reviewsPerSession оценок за одну учебную сессию
+ * @param thinkTime        пауза клиента между оценками
+ * @param warmup           сколько первых секунд не попадает в статистику
+ * @param duration         длительность измерения
+ * @param seed             засеять (false — использовать засеянное прошлым прогоном)
+ * @param reset            перед засевом удалить уже засеянных пользователей load-теста со всеми их данными;
+ *                         без него засев в БД, где они уже есть, отказывается работать
+ * @param out              куда писать отчёт (summary.json и гистограммы по операциям)
+ * @param baseline         summary.json прошлого прогона для сравнения или null
+ * @param maxRegression    допустимое ухудшение p99 и пропускной способности относительно baseline, доля
+ */
+record LoadTestOptions(String baseUrl,
+                       String dbUrl,
+                       String dbUser,
+                       String dbPassword,
+                       int users,
+                       int collections,
+                       int cards,
+                       double reviewShare,
+                       int clients,
+                       int reviewsPerSession,
+                       Duration thinkTime,
+                       Duration warmup,
+                       Duration duration,
+                       boolean seed,
+                       boolean reset,
+                       Path out,
+                       Path baseline,
+                       double maxRegression) {
+
+  static final String PASSWORD = "loadtest";
+
+  static LoadTestOptions parse(String[] args) {
+    Map<String, String> a = new HashMap<>();
+    for (String arg : args) {
+      String nameValue = arg.startsWith("--") ? arg.substring(2) : arg;
+      int eq = nameValue.indexOf('=');
+      if (eq < 1) throw new IllegalArgumentException("Expected name=value, got " + arg);
+      a.put(nameValue.substring(0, eq), nameValue.substring(eq + 1));
+    }
+    String dbUrl = "jdbc:postgresql://" + env("DB_HOST", "localhost") + ":" + env("DB_PORT", "5432")
+            + "/" + env("POSTGRES_DATABASE", "flashcards") + "?currentSchema=" + env("POSTGRES_SCHEMA", "flashcards")
+            + "&reWriteBatchedInserts=true";
+    int users = Integer.parseInt(a.getOrDefault("users", "100"));
+    LoadTestOptions options = new LoadTestOptions(
+            a.getOrDefault("base-url", "http://localhost:8080"),
+            a.getOrDefault("db-url", dbUrl),
+            a.getOrDefault("db-user", env("POSTGRES_USERNAME", "postgres")),
+            a.getOrDefault("db-password", env("POSTGRES_PASSWORD", "postgres")),
+            users,
+            Integer.parseInt(a.getOrDefault("collections", "3")),
+            Integer.parseInt(a.getOrDefault("cards", "2000")),
+            Double.parseDouble(a.getOrDefault("review-share", "0.3")),
+            Integer.parseInt(a.getOrDefault("clients", String.valueOf(users))),
+            Integer.parseInt(a.getOrDefault("reviews-per-session", "20")),
+            Duration.ofMillis(Long.parseLong(a.getOrDefault("think-ms", "0"))),
+            Duration.ofSeconds(Long.parseLong(a.getOrDefault("warmup", "30"))),
+            Duration.ofSeconds(Long.parseLong(a.getOrDefault("duration", "120"))),
+            Boolean.parseBoolean(a.getOrDefault("seed", "true")),
+            Boolean.parseBoolean(a.getOrDefault("reset", "false")),
+            Path.of(a.getOrDefault("out", "target/loadtest")),
+            a.containsKey("baseline") ? Path.of(a.get("baseline")) : null,
+            Double.parseDouble(a.getOrDefault("max-regression", "0.1")));
+    if (options.clients < 1 || options.clients > options.users) {
+      throw new IllegalArgumentException("clients must be 1.." + options.users);
+    }
+    if (options.reviewShare < 0 || options.reviewShare > 1) {
+      throw new IllegalArgumentException("review-share must be 0..1");
+    }
+    return options;
+  }
+
+  private static String env(String name, String defaultValue) {
+    String value = System.getenv(name);
+    return value == null || value.isBlank() ? defaultValue : value;
+  }
+}
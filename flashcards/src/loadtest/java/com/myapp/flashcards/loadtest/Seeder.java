@@ -0,0 +1,138 @@
+package com.myapp.flashcards.loadtest;
+
+import com.myapp.flashcards.srs.SrsConfig;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Засевает пользователей load-теста прямо в PostgreSQL, минуя API: пользователи, коллекции и карточки
+ * создаются несколькими INSERT ... SELECT generate_series, так что миллион карточек — секунды.
+ * <p>
+ * Пользователи load-теста — loadtest-&lt;n&gt;@loadtest.local с паролем {@link LoadTestOptions#PASSWORD}.
+ * Если они уже есть, засев останавливается: удалить их вместе со всеми данными (каскадом) и создать заново
+ * можно только явно, с reset=true, — иначе прогон против не той БД стёр бы чужие данные.
+ * Кэши запущенного приложения при этом не сбрасываются — новые пользователи получают новые id.
+ */
+final class Seeder {
+
+  static final String EMAIL_PATTERN = "loadtest-%@loadtest.local";
+
+  /** Засеянный пользователь и id его коллекций. */
+  record SeededUser(int id, String email, List<Integer> collectionIds) {}
+
+  private Seeder() {
+  }
+
+  static List<SeededUser> seed(LoadTestOptions options) throws SQLException {
+    try (Connection conn = DriverManager.getConnection(options.dbUrl(), options.dbUser(), options.dbPassword())) {
+      if (options.seed()) {
+        conn.setAutoCommit(false);
+        insert(conn, options);
+        conn.commit();
+        conn.setAutoCommit(true);
+        try (PreparedStatement ps = conn.prepareStatement("ANALYZE cards")) {
+          ps.execute();
+        }
+      }
+      return load(conn, options.users());
+    }
+  }
+
+  private static void insert(Connection conn, LoadTestOptions options) throws SQLException {
+    if (options.reset()) {
+      update(conn, "DELETE FROM users WHERE email LIKE ?", EMAIL_PATTERN);
+    } else {
+      int existing = count(conn);
+      if (existing > 0) {
+        throw new IllegalStateException(existing + " load test users already exist in " + options.dbUrl()
+                + ": run with seed=false to reuse them or reset=true to delete them with all their data");
+      }
+    }
+
+    String hash = new BCryptPasswordEncoder().encode(LoadTestOptions.PASSWORD);
+    update(conn, """
+            INSERT INTO users (email, password)
+            SELECT 'loadtest-' || g || '@loadtest.local', ?
+            FROM generate_series(1, ?) g
+            """, hash, options.users());
+    update(conn, """
+            INSERT INTO collections (name, user_id)
+            SELECT 'Load test ' || g, u.id
+            FROM users u, generate_series(1, ?) g
+            WHERE u.email LIKE ?
+            """, options.collections(), EMAIL_PATTERN);
+
+    // первые reviewShare карточек коллекции — review с due сегодня (интервал 1..30 дней), остальные — новые
+    int reviewCards = (int) Math.round(options.cards() * options.reviewShare());
+    int today = (int) LocalDate.now().toEpochDay();
+    update(conn, """
+            INSERT INTO cards (text, collection_id, user_id, created_at,
+                               type, queue, due, ivl, factor, reps, lapses, steps_left)
+            SELECT 'load test card ' || col.id || '-' || g, col.id, col.user_id, now(),
+                   CASE WHEN g <= ? THEN 2 ELSE 0 END,
+                   CASE WHEN g <= ? THEN 2 ELSE 0 END,
+                   CASE WHEN g <= ? THEN ? ELSE 0 END,
+                   CASE WHEN g <= ? THEN 1 + g % 30 ELSE 0 END,
+                   ?,
+                   CASE WHEN g <= ? THEN 1 + g % 10 ELSE 0 END,
+                   0,
+                   ?
+            FROM collections col
+            JOIN users u ON u.id = col.user_id
+            CROSS JOIN generate_series(1, ?) g
+            WHERE u.email LIKE ?
+            """, reviewCards, reviewCards, reviewCards, today, reviewCards, SrsConfig.INITIAL_FACTOR,
+            reviewCards, SrsConfig.INITIAL_STEPS, options.cards(), EMAIL_PATTERN);
+  }
+
+  private static List<SeededUser> load(Connection conn, int users) throws SQLException {
+    List<SeededUser> result = new ArrayList<>();
+    try (PreparedStatement ps = conn.prepareStatement("""
+            SELECT u.id, u.email, array_agg(col.id ORDER BY col.id)
+            FROM users u
+            JOIN collections col ON col.user_id = u.id
+            WHERE u.email LIKE ?
+            GROUP BY u.id, u.email
+            ORDER BY u.id
+            LIMIT ?
+            """)) {
+      ps.setString(1, EMAIL_PATTERN);
+      ps.setInt(2, users);
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          result.add(new SeededUser(rs.getInt(1), rs.getString(2),
+                  List.of((Integer[]) rs.getArray(3).getArray())));
+        }
+      }
+    }
+    if (result.size() < users) {
+      throw new IllegalStateException("Only " + result.size() + " load test users found, run with seed=true");
+    }
+    return result;
+  }
+
+  private static int count(Connection conn) throws SQLException {
+    try (PreparedStatement ps = conn.prepareStatement("SELECT count(*) FROM users WHERE email LIKE ?")) {
+      ps.setString(1, EMAIL_PATTERN);
+      try (ResultSet rs = ps.executeQuery()) {
+        rs.next();
+        return rs.getInt(1);
+      }
+    }
+  }
+
+  private static void update(Connection conn, String sql, Object... params) throws SQLException {
+    try (PreparedStatement ps = conn.prepareStatement(sql)) {
+      for (int i = 0; i < params.length; i++) ps.setObject(i + 1, params[i]);
+      ps.executeUpdate();
+    }
+  }
+}
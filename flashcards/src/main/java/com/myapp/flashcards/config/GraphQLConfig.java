@@ -1,18 +1,34 @@
 package com.myapp.flashcards.config;
 
+import com.myapp.flashcards.graphql.instrumentation.QueryCostCalculator;
+import com.myapp.flashcards.graphql.instrumentation.QueryDepthInstrumentation;
+import com.myapp.flashcards.graphql.preparsed.PersistedDocumentProvider;
 import com.myapp.flashcards.graphql.scalars.CustomLocalDateTimeCoercing;
+import graphql.ErrorClassification;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
 import graphql.language.StringValue;
 import graphql.schema.Coercing;
 import graphql.schema.CoercingParseLiteralException;
 import graphql.schema.CoercingParseValueException;
 import graphql.schema.CoercingSerializeException;
+import graphql.schema.DataFetchingEnvironment;
 import graphql.schema.GraphQLScalarType;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.graphql.GraphQlSourceBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.graphql.execution.DataFetcherExceptionResolver;
+import org.springframework.graphql.execution.DataFetcherExceptionResolverAdapter;
+import org.springframework.graphql.execution.ErrorType;
 import org.springframework.graphql.execution.RuntimeWiringConfigurer;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.RejectedExecutionException;
 
 @Configuration
 public class GraphQLConfig {
@@ -26,6 +42,90 @@ public class GraphQLConfig {
             .build();
   }
 
+  /*
+   * Некорректные аргументы (например, испорченный курсор страницы) — ошибка клиента, а не INTERNAL_ERROR
+   */
+  @Bean
+  public DataFetcherExceptionResolver badRequestExceptionResolver() {
+    return new DataFetcherExceptionResolverAdapter() {
+      @Override
+      protected GraphQLError resolveToSingleError(Throwable ex, DataFetchingEnvironment env) {
+        if (!(ex instanceof IllegalArgumentException)) return null;
+        return GraphqlErrorBuilder.newError(env)
+                .errorType(ErrorType.BAD_REQUEST)
+                .message(ex.getMessage())
+                .build();
+      }
+    };
+  }
+
+  /*
+   * Карточку меняли одновременно и все повторы оценки не удались — клиент может повторить
+   * запрос с тем же idempotencyKey (classification CONFLICT), это не внутренняя ошибка сервера
+   */
+  @Bean
+  public DataFetcherExceptionResolver conflictExceptionResolver() {
+    return new DataFetcherExceptionResolverAdapter() {
+      @Override
+      protected GraphQLError resolveToSingleError(Throwable ex, DataFetchingEnvironment env) {
+        if (!(ex instanceof OptimisticLockingFailureException)) return null;
+        return GraphqlErrorBuilder.newError(env)
+                .errorType(ErrorClassification.errorClassification("CONFLICT"))
+                .message("Concurrent modification, retry the request")
+                .build();
+      }
+    };
+  }
+
+  /*
+   * Очередь фоновых задач (подбор весов FSRS) заполнена — сервер занят, клиент может повторить позже
+   */
+  @Bean
+  public DataFetcherExceptionResolver rejectedExecutionExceptionResolver() {
+    return new DataFetcherExceptionResolverAdapter() {
+      @Override
+      protected GraphQLError resolveToSingleError(Throwable ex, DataFetchingEnvironment env) {
+        if (!(ex instanceof RejectedExecutionException)) return null;
+        return GraphqlErrorBuilder.newError(env)
+                .errorType(ErrorClassification.errorClassification("UNAVAILABLE"))
+                .message(ex.getMessage())
+                .build();
+      }
+    };
+  }
+
+  /*
+   * Имя операции задаёт клиент: не больше 200 разных значений тега operation,
+   * остальные метрики graphql.operation* не регистрируются
+   */
+  @Bean
+  public MeterFilter graphqlOperationTagLimit() {
+    return MeterFilter.maximumAllowableTags("graphql.operation", "operation", 200, MeterFilter.deny());
+  }
+
+  /*
+   * Глубина и стоимость запроса проверяются до выполнения: схема циклическая
+   * (User.collections → Collection.cards → Card.collection → …), и один запрос
+   * может загрузить миллионы строк. Превышение — ошибка ExecutionAborted без единого резолвера.
+   */
+  @Bean
+  public QueryDepthInstrumentation queryDepthInstrumentation(
+          @Value("${graphql-limits.max-depth:12}") int maxDepth) {
+    return new QueryDepthInstrumentation(maxDepth);
+  }
+
+  @Bean
+  public MaxQueryComplexityInstrumentation maxQueryComplexityInstrumentation(
+          @Value("${graphql-limits.max-complexity:10000}") int maxComplexity,
+          @Value("${graphql-limits.default-list-size:100}") int defaultListSize) {
+    return new MaxQueryComplexityInstrumentation(maxComplexity, new QueryCostCalculator(defaultListSize));
+  }
+
+  @Bean
+  public GraphQlSourceBuilderCustomizer persistedDocumentsCustomizer(PersistedDocumentProvider documentProvider) {
+    return builder -> builder.configureGraphQl(graphQl -> graphQl.preparsedDocumentProvider(documentProvider));
+  }
+
   @Bean
   public RuntimeWiringConfigurer runtimeWiringConfigurer() {
     return builder -> builder.scalar(localDateTimeScalar());
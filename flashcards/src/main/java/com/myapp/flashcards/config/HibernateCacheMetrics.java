@@ -0,0 +1,42 @@
+package com.myapp.flashcards.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+/**
+ * Доля попаданий по каждому региону кэша второго уровня:
+ * hibernate.second.level.cache.hit.ratio{region=...}.
+ * Сами счётчики hit / miss публикует hibernate-micrometer
+ * (hibernate.second.level.cache.requests, hibernate.cache.query.requests).
+ */
+@Component
+@RequiredArgsConstructor
+public class HibernateCacheMetrics implements MeterBinder {
+
+  private final EntityManagerFactory entityManagerFactory;
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    for (String region : statistics.getSecondLevelCacheRegionNames()) {
+      Gauge.builder("hibernate.second.level.cache.hit.ratio", statistics, s -> hitRatio(s, region))
+              .tag("region", region)
+              .description("Доля попаданий в регион кэша второго уровня")
+              .register(registry);
+    }
+  }
+
+  private static double hitRatio(Statistics statistics, String region) {
+    CacheRegionStatistics stats = statistics.getCacheRegionStatistics(region);
+    if (stats == null) return Double.NaN;
+    long requests = stats.getHitCount() + stats.getMissCount();
+    return requests == 0 ? Double.NaN : (double) stats.getHitCount() / requests;
+  }
+}
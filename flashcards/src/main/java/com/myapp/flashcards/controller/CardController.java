@@ -1,20 +1,34 @@
 package com.myapp.flashcards.controller;
 
+import com.myapp.flashcards.dto.CardConnection;
 import com.myapp.flashcards.dto.CardInp;
+import com.myapp.flashcards.dto.CardSearchConnection;
+import com.myapp.flashcards.dto.CollectionCounts;
 import com.myapp.flashcards.model.*;
+import com.myapp.flashcards.security.CustomUserDetails;
 import com.myapp.flashcards.service.CardService;
 import lombok.RequiredArgsConstructor;
+import org.dataloader.DataLoader;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @Controller
 @RequiredArgsConstructor
 public class CardController {
 
+  /* Значения first по умолчанию из схемы: явный first: null приходит как null, а не как default */
+  private static final int DEFAULT_PAGE_SIZE = 50;
+  private static final int DEFAULT_SEARCH_PAGE_SIZE = 20;
+
   private final CardService cardService;
 
   @MutationMapping
@@ -27,6 +41,48 @@ public class CardController {
     return cardService.getAllByCollectionId(collectionId);
   }
 
+  /**
+   * Карточки коллекции постранично (keyset по createdAt, id)
+   */
+  @QueryMapping
+  public CardConnection cards(@Argument Integer collectionId,
+                              @Argument Integer first,
+                              @Argument String after) {
+    return cardService.getCardsPage(collectionId, Objects.requireNonNullElse(first, DEFAULT_PAGE_SIZE), after);
+  }
+
+  @SchemaMapping(typeName = "Collection", field = "cardsConnection")
+  public CardConnection cardsConnection(Collection collection,
+                                        @Argument Integer first,
+                                        @Argument String after) {
+    return cardService.getCardsPage(collection.getId(), Objects.requireNonNullElse(first, DEFAULT_PAGE_SIZE),
+            after);
+  }
+
+  /*
+   * totalCount — из того же кэша счётчиков, что и Collection.countCards, без COUNT(*) на страницу
+   */
+  @SchemaMapping(typeName = "CardConnection", field = "totalCount")
+  public CompletableFuture<Integer> totalCount(CardConnection connection,
+                                               DataLoader<Integer, CollectionCounts> counts) {
+    return counts.load(connection.collectionId()).thenApply(CollectionCounts::total);
+  }
+
+  /**
+   * Поиск по карточкам текущего пользователя; collectionId сужает поиск до одной коллекции.
+   * Анонимный запрос — ошибка UNAUTHORIZED.
+   */
+  @QueryMapping
+  public CardSearchConnection searchCards(@AuthenticationPrincipal CustomUserDetails principal,
+                                          @Argument String query,
+                                          @Argument Integer collectionId,
+                                          @Argument Integer first,
+                                          @Argument String after) {
+    if (principal == null) throw new AuthenticationCredentialsNotFoundException("Authentication required");
+    return cardService.searchCards(principal.getUser().getId(), query, collectionId,
+            Objects.requireNonNullElse(first, DEFAULT_SEARCH_PAGE_SIZE), after);
+  }
+
   @QueryMapping
   public Card card(@Argument Integer id) {
     return cardService.getCardById(id)
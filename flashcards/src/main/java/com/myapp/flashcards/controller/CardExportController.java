@@ -0,0 +1,74 @@
+package com.myapp.flashcards.controller;
+
+import com.myapp.flashcards.dto.CardFileFormat;
+import com.myapp.flashcards.model.Collection;
+import com.myapp.flashcards.service.CardExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class CardExportController {
+
+  private final CardExportService cardExportService;
+
+  /**
+   * Экспорт коллекции: карточки со всеми SRS-полями в NDJSON / CSV / TSV,
+   * при gzip=true — сжатым файлом. Пишется прямо в поток ответа.
+   */
+  @GetMapping("/collections/{collectionId}/export")
+  public void exportCollection(@PathVariable Integer collectionId,
+                               @RequestParam(defaultValue = "ndjson") String format,
+                               @RequestParam(defaultValue = "false") boolean gzip,
+                               HttpServletResponse response) throws IOException {
+    CardFileFormat fileFormat = resolve(format);
+    Collection collection = cardExportService.getCollection(collectionId);
+    try (OutputStream out = open(response, "collection-" + collectionId, fileFormat, gzip)) {
+      cardExportService.exportCollection(collection, fileFormat, out);
+    }
+  }
+
+  /**
+   * Экспорт всех коллекций пользователя одним файлом.
+   */
+  @GetMapping("/users/{userId}/export")
+  public void exportUser(@PathVariable Integer userId,
+                         @RequestParam(defaultValue = "ndjson") String format,
+                         @RequestParam(defaultValue = "false") boolean gzip,
+                         HttpServletResponse response) throws IOException {
+    CardFileFormat fileFormat = resolve(format);
+    try (OutputStream out = open(response, "flashcards-" + userId, fileFormat, gzip)) {
+      cardExportService.exportUser(userId, fileFormat, out);
+    }
+  }
+
+  /* Неизвестный формат — ошибка клиента, а не 500 */
+  private static CardFileFormat resolve(String format) {
+    try {
+      return CardFileFormat.resolve(format, null);
+    } catch (IllegalArgumentException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+  }
+
+  private static OutputStream open(HttpServletResponse response, String name,
+                                   CardFileFormat format, boolean gzip) throws IOException {
+    String fileName = name + "." + format.name().toLowerCase(Locale.ROOT) + (gzip ? ".gz" : "");
+    response.setContentType(gzip ? "application/gzip" : format.mediaType() + ";charset=UTF-8");
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment().filename(fileName).build().toString());
+    OutputStream out = response.getOutputStream();
+    return gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+  }
+}
@@ -0,0 +1,47 @@
+package com.myapp.flashcards.controller;
+
+import com.myapp.flashcards.dto.CardFileFormat;
+import com.myapp.flashcards.dto.ImportResult;
+import com.myapp.flashcards.service.CardImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/collections")
+@RequiredArgsConstructor
+public class CardImportController {
+
+  private final CardImportService cardImportService;
+
+  /**
+   * Импорт карточек из тела запроса (CSV / TSV / NDJSON).
+   * Тело читается потоком, без multipart и без буферизации файла целиком.
+   * Формат — параметр format или Content-Type (text/csv, text/tab-separated-values, application/x-ndjson).
+   * Form-urlencoded не принимаем: сервлет-контейнер прочитал бы такое тело как параметры формы.
+   */
+  @PostMapping(value = "/{collectionId}/import", consumes = {
+          "text/csv", "text/tab-separated-values", "application/x-ndjson",
+          MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+  public ImportResult importCards(@PathVariable Integer collectionId,
+                                  @RequestParam(required = false) String format,
+                                  @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+                                  HttpServletRequest request) throws IOException {
+    return cardImportService.importCards(collectionId, resolve(format, contentType), request.getInputStream());
+  }
+
+  /* Неизвестный или не указанный формат — ошибка клиента, а не 500 */
+  private static CardFileFormat resolve(String format, String contentType) {
+    try {
+      return CardFileFormat.resolve(format, contentType);
+    } catch (IllegalArgumentException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+  }
+}
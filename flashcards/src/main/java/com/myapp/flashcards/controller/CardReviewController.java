@@ -1,6 +1,8 @@
 package com.myapp.flashcards.controller;
 
-import com.myapp.flashcards.dto.NextInterval;
+import com.myapp.flashcards.dto.NextIntervalDto;
+import com.myapp.flashcards.dto.ReviewInp;
+import com.myapp.flashcards.dto.ReviewResult;
 import com.myapp.flashcards.model.Card;
 import com.myapp.flashcards.model.ReviewAnswer;
 import com.myapp.flashcards.service.CardReviewService;
@@ -12,11 +14,15 @@ import org.springframework.graphql.data.method.annotation.SchemaMapping;
 import org.springframework.stereotype.Controller;
 
 import java.util.List;
+import java.util.Objects;
 
 @Controller
 @RequiredArgsConstructor
 public class CardReviewController {
 
+  /* Значение limit по умолчанию из схемы: явный limit: null приходит как null, а не как default */
+  private static final int DEFAULT_DUE_LIMIT = 100;
+
   private final CardReviewService reviewService;
 
   @QueryMapping
@@ -24,19 +30,29 @@ public class CardReviewController {
     return reviewService.startLearning(collectionId);
   }
 
+  @QueryMapping
+  public List<Card> dueCardsForUser(@Argument Integer userId, @Argument Integer limit) {
+    return reviewService.dueCardsForUser(userId, Objects.requireNonNullElse(limit, DEFAULT_DUE_LIMIT));
+  }
+
   @MutationMapping
   public Card reviewCard(@Argument Integer cardId,
-                         @Argument ReviewAnswer answer) {
-    return reviewService.gradeCard(cardId, answer);
+                         @Argument ReviewAnswer answer,
+                         @Argument Integer timeTakenMs,
+                         @Argument String idempotencyKey) {
+    return reviewService.gradeCard(cardId, answer, timeTakenMs, idempotencyKey);
+  }
+
+  @MutationMapping
+  public List<ReviewResult> submitReviews(@Argument List<ReviewInp> reviews) {
+    return reviewService.submitReviews(reviews);
   }
 
   /**
-   * Маппинг GraphQL поля Card.newIntervals → DTO NextInterval
+   * GraphQL поле Card.newIntervals: считается лениво, только если его выбрали в запросе
    */
   @SchemaMapping(typeName = "Card", field = "newIntervals")
-  public List<NextInterval> newIntervals(Card c) {
-    return c.getNewIntervals().values().stream()
-            .map(dto -> new NextInterval(dto.answer(), dto.interval(), dto.unit()))
-            .toList();
+  public List<NextIntervalDto> newIntervals(Card c) {
+    return reviewService.previewIntervals(c);
   }
 }
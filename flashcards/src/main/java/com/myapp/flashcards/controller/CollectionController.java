@@ -1,30 +1,36 @@
 package com.myapp.flashcards.controller;
 
+import com.myapp.flashcards.dto.CollectionCounts;
 import com.myapp.flashcards.dto.CollectionInp;
 import com.myapp.flashcards.model.*;
 import com.myapp.flashcards.model.Collection;
 import com.myapp.flashcards.repository.*;
-import com.myapp.flashcards.service.CardService;
+import com.myapp.flashcards.service.CollectionDueSnapshots;
 import com.myapp.flashcards.service.CollectionService;
+import com.myapp.flashcards.service.DueCountsPublisher;
 import lombok.RequiredArgsConstructor;
+import org.dataloader.DataLoader;
 import org.hibernate.annotations.Parent;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.data.method.annotation.SubscriptionMapping;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 @Controller
 @RequiredArgsConstructor
 public class CollectionController {
 
   private final CollectionService collectionService;
-  private final CardService cardService;
+  private final DueCountsPublisher dueCountsPublisher;
 
   @MutationMapping
   public Collection saveCollection(@Argument("collection") CollectionInp collectionInp) {
@@ -48,23 +54,48 @@ public class CollectionController {
     return collectionService.getCollectionsByUserId(userId);
   }
 
+  /*
+   * Вместо периодического опроса collectionsByUserId: счётчики приходят после каждого изменения
+   */
+  @SubscriptionMapping
+  public Flux<CollectionCounts> dueCountsChanged(@Argument Integer userId) {
+    return dueCountsPublisher.subscribe(userId);
+  }
+
+  /*
+   * Счётчики загружаются через DataLoader: на весь ответ — один GROUP BY-запрос
+   */
   @SchemaMapping
-  public Integer countCards(Collection collection) {
-    return cardService.countByCollectionId(collection.getId());
+  public CompletableFuture<Integer> countCards(Collection collection,
+                                               DataLoader<Integer, CollectionCounts> counts) {
+    return counts.load(collection.getId()).thenApply(CollectionCounts::total);
   }
 
   @SchemaMapping(typeName = "Collection", field = "newCount")
-  public Integer newCount(Collection collection) {
-    return cardService.countNew(collection.getId());
+  public CompletableFuture<Integer> newCount(Collection collection,
+                                             DataLoader<Integer, CollectionCounts> counts) {
+    return counts.load(collection.getId()).thenApply(CollectionCounts::newCount);
   }
 
   @SchemaMapping(typeName = "Collection", field = "learningCount")
-  public Integer learningCount(Collection collection) {
-    return cardService.countLearning(collection.getId());
+  public CompletableFuture<Integer> learningCount(Collection collection,
+                                                  DataLoader<Integer, CollectionCounts> counts) {
+    return counts.load(collection.getId()).thenApply(CollectionCounts::learningCount);
   }
 
   @SchemaMapping(typeName = "Collection", field = "reviewCount")
-  public Integer reviewCount(Collection collection) {
-    return cardService.countDueReview(collection.getId());
+  public CompletableFuture<Integer> reviewCount(Collection collection,
+                                                DataLoader<Integer, CollectionCounts> counts) {
+    return counts.load(collection.getId()).thenApply(CollectionCounts::reviewCount);
+  }
+
+  /*
+   * Прогноз берётся из снимка, посчитанного при смене дня; пока снимка на сегодня нет — null
+   */
+  @SchemaMapping(typeName = "Collection", field = "dueForecast")
+  public CompletableFuture<List<Integer>> dueForecast(Collection collection,
+                                                      DataLoader<Integer, CollectionDueSnapshots.Snapshot> snapshots) {
+    return snapshots.load(collection.getId())
+            .thenApply(s -> s == null ? null : Arrays.stream(s.forecast()).boxed().toList());
   }
 }
@@ -0,0 +1,28 @@
+package com.myapp.flashcards.controller;
+
+import com.myapp.flashcards.dto.DuplicateCandidate;
+import com.myapp.flashcards.service.DuplicateService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.MutationMapping;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.stereotype.Controller;
+
+import java.util.List;
+
+@Controller
+@RequiredArgsConstructor
+public class DuplicateController {
+
+  private final DuplicateService duplicateService;
+
+  @QueryMapping
+  public List<DuplicateCandidate> duplicateCandidates(@Argument Integer collectionId) {
+    return duplicateService.getCandidates(collectionId);
+  }
+
+  @MutationMapping
+  public int indexDuplicates(@Argument Integer collectionId) {
+    return duplicateService.indexCollection(collectionId);
+  }
+}
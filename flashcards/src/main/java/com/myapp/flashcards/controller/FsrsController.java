@@ -0,0 +1,28 @@
+package com.myapp.flashcards.controller;
+
+import com.myapp.flashcards.model.FsrsParameters;
+import com.myapp.flashcards.srs.FsrsOptimizer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.MutationMapping;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.stereotype.Controller;
+
+import java.util.concurrent.CompletableFuture;
+
+@Controller
+@RequiredArgsConstructor
+public class FsrsController {
+
+  private final FsrsOptimizer fsrsOptimizer;
+
+  @QueryMapping
+  public FsrsParameters fsrsParameters(@Argument Integer userId) {
+    return fsrsOptimizer.getParameters(userId).orElse(null);
+  }
+
+  @MutationMapping
+  public CompletableFuture<FsrsParameters> optimizeFsrsParameters(@Argument Integer userId) {
+    return fsrsOptimizer.optimizeAsync(userId);
+  }
+}
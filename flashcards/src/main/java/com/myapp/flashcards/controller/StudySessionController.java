@@ -0,0 +1,26 @@
+package com.myapp.flashcards.controller;
+
+import com.myapp.flashcards.dto.StudyStep;
+import com.myapp.flashcards.study.StudySession;
+import com.myapp.flashcards.study.StudySessionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.MutationMapping;
+import org.springframework.stereotype.Controller;
+
+@Controller
+@RequiredArgsConstructor
+public class StudySessionController {
+
+  private final StudySessionService sessionService;
+
+  @MutationMapping
+  public StudySession openSession(@Argument Integer collectionId) {
+    return sessionService.openSession(collectionId);
+  }
+
+  @MutationMapping
+  public StudyStep nextCard(@Argument String sessionId) {
+    return sessionService.nextCard(sessionId);
+  }
+}
@@ -0,0 +1,302 @@
+package com.myapp.flashcards.dedup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Индекс похожих карточек: MinHash-сигнатуры (card_signatures), LSH-корзины (card_lsh_buckets)
+ * и найденные пары (card_duplicates).
+ * <p>
+ * Новая карточка сравнивается не со всеми карточками пользователя, а только с теми,
+ * что лежат хотя бы в одной её корзине, — несколько выборок по индексу вместо попарного перебора.
+ * Кандидаты проверяются по сигнатурам; пара записывается, если оценка сходства не ниже порога.
+ * Пачка (импорт) обрабатывается целиком: кандидаты со своими сигнатурами для всех корзин пачки —
+ * один запрос, дубликаты внутри самой пачки находятся в памяти.
+ */
+@Slf4j
+@Component
+public class DuplicateIndex {
+
+  /* Из корзины берём не больше стольких карточек: для «толпы» одинаковых карточек хватит связи с несколькими */
+  private static final int BUCKET_LIMIT = 10;
+  /* На одну карточку записываем не больше стольких самых похожих пар */
+  private static final int MAX_PAIRS_PER_CARD = 10;
+
+  /*
+   * Сохранённые карточки пользователя в корзинах пачки (не больше BUCKET_LIMIT на корзину)
+   * вместе с их сигнатурами: по строке на карточку, buckets — в каких корзинах пачки она нашлась
+   */
+  private static final String CANDIDATES_SQL = """
+          WITH hits AS (
+              SELECT q.bucket, b.card_id
+              FROM unnest(?) AS q(bucket)
+                       CROSS JOIN LATERAL (
+                  SELECT l.card_id
+                  FROM card_lsh_buckets l
+                  WHERE l.bucket = q.bucket
+                  LIMIT ?) b
+          )
+          SELECT s.card_id, s.text_hash, s.minhash, array_agg(h.bucket)
+          FROM hits h
+                   JOIN card_signatures s ON s.card_id = h.card_id
+          WHERE s.user_id = ?
+          GROUP BY s.card_id
+          """;
+
+  /* Карточки коллекции без сигнатуры (добавленные до появления индекса или импортом), порциями по id */
+  private static final String UNINDEXED_SQL = """
+          SELECT c.id, c.text
+          FROM cards c
+          WHERE c.collection_id = ? AND c.id > ? AND c.id <= ?
+            AND NOT EXISTS (SELECT 1 FROM card_signatures s WHERE s.card_id = c.id)
+          ORDER BY c.id
+          LIMIT ?
+          """;
+
+  /*
+   * Сигнатуры пачки одним запросом: параллельные массивы по карточкам, корзины — общий массив
+   * по MinHash.BANDS на карточку. Карточку, которую уже проиндексировал параллельный поток
+   * (мутация indexDuplicates и фоновая индексация после импорта), пропускаем — RETURNING
+   * возвращает только реально вставленные id
+   */
+  private static final String INSERT_SIGNATURES_SQL = """
+          INSERT INTO card_signatures (card_id, user_id, text_hash, minhash, buckets)
+          SELECT u.card_id, ?, u.text_hash, u.minhash, (?::bigint[])[(u.n - 1) * ? + 1 : u.n * ?]
+          FROM unnest(?::int[], ?::bigint[], ?::bytea[]) WITH ORDINALITY AS u(card_id, text_hash, minhash, n)
+          ON CONFLICT (card_id) DO NOTHING
+          RETURNING card_id
+          """;
+  /* Совпадение корзин двух полос одной карточки — коллизия 64-битного хеша, строку просто пропускаем */
+  private static final String INSERT_BUCKET_SQL =
+          "INSERT INTO card_lsh_buckets (bucket, card_id) VALUES (?, ?) ON CONFLICT DO NOTHING";
+  private static final String INSERT_PAIR_SQL = """
+          INSERT INTO card_duplicates (card_id, duplicate_id, similarity, exact)
+          VALUES (?, ?, ?, ?)
+          ON CONFLICT (card_id, duplicate_id) DO NOTHING
+          """;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final double threshold;
+
+  public DuplicateIndex(JdbcTemplate jdbcTemplate,
+                        TransactionTemplate transactionTemplate,
+                        @Value("${duplicates.similarity-threshold:0.8}") double threshold) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.threshold = threshold;
+  }
+
+  /**
+   * Сигнатура карточки: id, хеш нормализованного текста, MinHash и корзины.
+   */
+  private record Entry(int cardId, long textHash, int[] signature, long[] buckets) {}
+
+  private record Pair(int cardId, int duplicateId, double similarity, boolean exact) {}
+
+  /**
+   * Индексирует новые карточки пользователя и записывает найденные пары дубликатов.
+   * Выполняется в текущей транзакции, если она есть (пачка импорта), иначе — в своей.
+   *
+   * @return сколько пар найдено
+   */
+  public int index(Integer userId, List<Integer> cardIds, List<String> texts) {
+    List<Entry> entries = new ArrayList<>(cardIds.size());
+    for (int i = 0; i < cardIds.size(); i++) {
+      String normalized = MinHash.normalize(texts.get(i));
+      int[] signature = MinHash.signature(normalized);
+      if (signature == null) continue;    // в тексте нет ни букв, ни цифр — сравнивать нечего
+      entries.add(new Entry(cardIds.get(i), MinHash.textHash(normalized), signature,
+              MinHash.buckets(userId, signature)));
+    }
+    if (entries.isEmpty()) return 0;
+
+    Integer found = transactionTemplate.execute(status -> {
+      Map<Long, List<Integer>> stored = new HashMap<>();
+      Map<Integer, Entry> known = findCandidates(userId, entries, stored);
+      List<Pair> pairs = match(entries, stored, known);
+      save(userId, entries, pairs);
+      return pairs.size();
+    });
+    return found == null ? 0 : found;
+  }
+
+  /**
+   * Текст карточки изменился: старые сигнатура, корзины и пары удаляются, карточка индексируется заново.
+   */
+  public int reindex(Integer userId, Integer cardId, String text) {
+    Integer found = transactionTemplate.execute(status -> {
+      jdbcTemplate.update("DELETE FROM card_duplicates WHERE card_id = ? OR duplicate_id = ?", cardId, cardId);
+      // корзины удаляет триггер card_signatures_delete_buckets
+      jdbcTemplate.update("DELETE FROM card_signatures WHERE card_id = ?", cardId);
+      return index(userId, List.of(cardId), List.of(text));
+    });
+    return found == null ? 0 : found;
+  }
+
+  /**
+   * Индексирует карточки коллекции, у которых ещё нет сигнатуры, порциями по batchSize
+   * (каждая порция — своя транзакция).
+   *
+   * @return сколько карточек проиндексировано
+   */
+  public int indexCollection(Integer userId, Integer collectionId, int batchSize) {
+    return indexCollection(userId, collectionId, 1, Integer.MAX_VALUE, batchSize);
+  }
+
+  /**
+   * То же для карточек коллекции с id от fromId до toId включительно (например, вставленных одним импортом).
+   *
+   * @return сколько карточек проиндексировано
+   */
+  public int indexCollection(Integer userId, Integer collectionId, int fromId, int toId, int batchSize) {
+    int total = 0;
+    int lastId = fromId - 1;
+    while (true) {
+      List<Integer> ids = new ArrayList<>(batchSize);
+      List<String> texts = new ArrayList<>(batchSize);
+      jdbcTemplate.query(UNINDEXED_SQL, rs -> {
+        ids.add(rs.getInt(1));
+        texts.add(rs.getString(2));
+      }, collectionId, lastId, toId, batchSize);
+      if (ids.isEmpty()) break;
+      index(userId, ids, texts);
+      total += ids.size();
+      lastId = ids.get(ids.size() - 1);
+    }
+    log.info("Duplicate index built: collection={}, cards={}", collectionId, total);
+    return total;
+  }
+
+  /**
+   * Сохранённые карточки-кандидаты: сигнатуры по id, а в stored — какие из них лежат в каждой корзине пачки.
+   */
+  private Map<Integer, Entry> findCandidates(Integer userId, List<Entry> entries, Map<Long, List<Integer>> stored) {
+    Set<Long> buckets = new LinkedHashSet<>();
+    for (Entry e : entries) {
+      for (long b : e.buckets()) buckets.add(b);
+    }
+    Map<Integer, Entry> known = new HashMap<>();
+    jdbcTemplate.query(con -> {
+      PreparedStatement ps = con.prepareStatement(CANDIDATES_SQL);
+      ps.setArray(1, con.createArrayOf("bigint", buckets.toArray()));
+      ps.setInt(2, BUCKET_LIMIT);
+      ps.setInt(3, userId);
+      return ps;
+    }, rs -> {
+      int cardId = rs.getInt(1);
+      known.put(cardId, new Entry(cardId, rs.getLong(2), MinHash.fromBytes(rs.getBytes(3)), null));
+      for (Long bucket : (Long[]) rs.getArray(4).getArray()) {
+        stored.computeIfAbsent(bucket, k -> new ArrayList<>()).add(cardId);
+      }
+    });
+    return known;
+  }
+
+  /**
+   * Сравнивает каждую карточку пачки с кандидатами из её корзин — сохранёнными
+   * и более ранними карточками той же пачки.
+   */
+  private List<Pair> match(List<Entry> entries, Map<Long, List<Integer>> stored, Map<Integer, Entry> known) {
+    Map<Long, List<Integer>> batch = new HashMap<>();
+    List<Pair> pairs = new ArrayList<>();
+
+    for (Entry e : entries) {
+      Set<Integer> seen = new HashSet<>();
+      List<Pair> found = new ArrayList<>();
+      for (long bucket : e.buckets()) {
+        for (List<Integer> ids : List.of(stored.getOrDefault(bucket, List.of()), batch.getOrDefault(bucket, List.of()))) {
+          for (Integer id : ids) {
+            if (id == e.cardId() || !seen.add(id)) continue;
+            Entry other = known.get(id);
+            boolean exact = other.textHash() == e.textHash();
+            double similarity = exact ? 1.0 : MinHash.similarity(e.signature(), other.signature());
+            if (similarity >= threshold) found.add(new Pair(e.cardId(), id, similarity, exact));
+          }
+        }
+      }
+      found.sort(Comparator.comparingDouble(Pair::similarity).reversed());
+      pairs.addAll(found.subList(0, Math.min(found.size(), MAX_PAIRS_PER_CARD)));
+
+      known.put(e.cardId(), e);
+      for (long bucket : e.buckets()) {
+        List<Integer> ids = batch.computeIfAbsent(bucket, k -> new ArrayList<>());
+        if (ids.size() < BUCKET_LIMIT) ids.add(e.cardId());
+      }
+    }
+    return pairs;
+  }
+
+  /**
+   * Записывает сигнатуры, а корзины и пары — только для карточек, сигнатуры которых вставлены здесь:
+   * остальные уже проиндексированы параллельно, их корзины и пары записал тот поток.
+   */
+  private void save(Integer userId, List<Entry> entries, List<Pair> pairs) {
+    Set<Integer> inserted = insertSignatures(userId, entries);
+    if (inserted.size() < entries.size()) {
+      log.debug("Cards already indexed concurrently: user={}, skipped={}", userId, entries.size() - inserted.size());
+    }
+    pairs = pairs.stream().filter(p -> inserted.contains(p.cardId())).toList();
+
+    List<long[]> buckets = new ArrayList<>(inserted.size() * MinHash.BANDS);
+    for (Entry e : entries) {
+      if (!inserted.contains(e.cardId())) continue;
+      for (long bucket : e.buckets()) buckets.add(new long[]{bucket, e.cardId()});
+    }
+    jdbcTemplate.batchUpdate(INSERT_BUCKET_SQL, buckets, buckets.size(), (ps, b) -> {
+      ps.setLong(1, b[0]);
+      ps.setInt(2, (int) b[1]);
+    });
+
+    if (pairs.isEmpty()) return;
+    jdbcTemplate.batchUpdate(INSERT_PAIR_SQL, pairs, pairs.size(), (ps, p) -> {
+      ps.setInt(1, p.cardId());
+      ps.setInt(2, p.duplicateId());
+      ps.setFloat(3, (float) p.similarity());
+      ps.setBoolean(4, p.exact());
+    });
+    log.debug("Duplicates found: user={}, cards={}, pairs={}", userId, inserted.size(), pairs.size());
+  }
+
+  private Set<Integer> insertSignatures(Integer userId, List<Entry> entries) {
+    Integer[] cardIds = new Integer[entries.size()];
+    Long[] textHashes = new Long[entries.size()];
+    byte[][] minhashes = new byte[entries.size()][];
+    Long[] buckets = new Long[entries.size() * MinHash.BANDS];
+    for (int i = 0; i < entries.size(); i++) {
+      Entry e = entries.get(i);
+      cardIds[i] = e.cardId();
+      textHashes[i] = e.textHash();
+      minhashes[i] = MinHash.toBytes(e.signature());
+      for (int b = 0; b < MinHash.BANDS; b++) buckets[i * MinHash.BANDS + b] = e.buckets()[b];
+    }
+    Set<Integer> inserted = new HashSet<>();
+    jdbcTemplate.query(con -> {
+      PreparedStatement ps = con.prepareStatement(INSERT_SIGNATURES_SQL);
+      ps.setInt(1, userId);
+      ps.setArray(2, con.createArrayOf("bigint", buckets));
+      ps.setInt(3, MinHash.BANDS);
+      ps.setInt(4, MinHash.BANDS);
+      ps.setArray(5, con.createArrayOf("int4", cardIds));
+      ps.setArray(6, con.createArrayOf("bigint", textHashes));
+      ps.setArray(7, con.createArrayOf("bytea", minhashes));
+      return ps;
+    }, rs -> {
+      inserted.add(rs.getInt(1));
+    });
+    return inserted;
+  }
+}
@@ -0,0 +1,142 @@
+package com.myapp.flashcards.dedup;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * MinHash-сигнатуры текста карточки и LSH-корзины по ним.
+ * <p>
+ * Текст нормализуется (нижний регистр, всё, кроме букв и цифр, — один пробел)
+ * и режется на символьные шинглы длины {@value #SHINGLE}. Для каждой из {@value #HASHES}
+ * хеш-функций в сигнатуру попадает минимум по шинглам; доля совпавших позиций двух
+ * сигнатур — оценка коэффициента Жаккара множеств шинглов.
+ * <p>
+ * Сигнатура делится на {@value #BANDS} полос по {@value #ROWS} значения; полоса хешируется
+ * в корзину. Карточки с общей корзиной — кандидаты в дубликаты: при сходстве 0.8 пара
+ * попадает в общую корзину с вероятностью 1 − (1 − 0.8⁵)¹² ≈ 0.99, при 0.5 — ≈ 0.32, при 0.3 — ≈ 0.03.
+ */
+public final class MinHash {
+
+  public static final int HASHES = 60;
+  public static final int BANDS = 12;
+  public static final int ROWS = HASHES / BANDS;
+  private static final int SHINGLE = 5;
+
+  /* Семена хеш-функций: h_i(x) = старшие 32 бита (x ^ SEEDS[i]) · K */
+  private static final long[] SEEDS = new long[HASHES];
+
+  static {
+    long s = 0x2545F4914F6CDD1DL;
+    for (int i = 0; i < HASHES; i++) {
+      s = mix(s + 0x9E3779B97F4A7C15L);
+      SEEDS[i] = s;
+    }
+  }
+
+  private MinHash() {
+  }
+
+  /**
+   * Текст в нижнем регистре, без разметки и пунктуации, с одиночными пробелами.
+   */
+  public static String normalize(String text) {
+    StringBuilder sb = new StringBuilder(text.length());
+    boolean space = false;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (Character.isLetterOrDigit(c)) {
+        if (space && !sb.isEmpty()) sb.append(' ');
+        sb.append(Character.toLowerCase(c));
+        space = false;
+      } else {
+        space = true;
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * 64-битный хеш нормализованного текста: равные хеши — точные дубликаты
+   * (с точностью до регистра и пунктуации).
+   */
+  public static long textHash(String normalized) {
+    return hash(normalized, 0, normalized.length());
+  }
+
+  /**
+   * Сигнатура нормализованного текста или null для пустого текста.
+   */
+  public static int[] signature(String normalized) {
+    int n = normalized.length();
+    if (n == 0) return null;
+
+    int[] sig = new int[HASHES];
+    Arrays.fill(sig, Integer.MAX_VALUE);
+    int shingles = Math.max(1, n - SHINGLE + 1);
+    for (int start = 0; start < shingles; start++) {
+      long x = hash(normalized, start, Math.min(n, start + SHINGLE));
+      for (int i = 0; i < HASHES; i++) {
+        int v = (int) (((x ^ SEEDS[i]) * 0x9E3779B97F4A7C15L) >>> 32);
+        if (v < sig[i]) sig[i] = v;
+      }
+    }
+    return sig;
+  }
+
+  /**
+   * Корзины сигнатуры, по одной на полосу. В хеш входят пользователь и номер полосы:
+   * корзины разных пользователей и одинаковые значения в разных полосах не совпадают.
+   */
+  public static long[] buckets(int userId, int[] sig) {
+    long[] buckets = new long[BANDS];
+    for (int band = 0; band < BANDS; band++) {
+      long h = ((long) userId << 8) | band;
+      for (int r = 0; r < ROWS; r++) {
+        h = mix(h * 31 + sig[band * ROWS + r]);
+      }
+      buckets[band] = h;
+    }
+    return buckets;
+  }
+
+  /** Сигнатура для колонки card_signatures.minhash: значения int подряд, big-endian. */
+  public static byte[] toBytes(int[] sig) {
+    ByteBuffer buf = ByteBuffer.allocate(sig.length * Integer.BYTES);
+    buf.asIntBuffer().put(sig);
+    return buf.array();
+  }
+
+  public static int[] fromBytes(byte[] bytes) {
+    int[] sig = new int[bytes.length / Integer.BYTES];
+    ByteBuffer.wrap(bytes).asIntBuffer().get(sig);
+    return sig;
+  }
+
+  /**
+   * Оценка сходства (Жаккара) двух сигнатур — доля совпавших позиций.
+   */
+  public static double similarity(int[] a, int[] b) {
+    int same = 0;
+    for (int i = 0; i < HASHES; i++) {
+      if (a[i] == b[i]) same++;
+    }
+    return (double) same / HASHES;
+  }
+
+  /* FNV-1a по символам [from, to) с финальным перемешиванием */
+  private static long hash(String s, int from, int to) {
+    long h = 0xCBF29CE484222325L;
+    for (int i = from; i < to; i++) {
+      h ^= s.charAt(i);
+      h *= 0x100000001B3L;
+    }
+    return mix(h);
+  }
+
+  /* Финализатор splitmix64 */
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,16 @@
+package com.myapp.flashcards.dto;
+
+import com.myapp.flashcards.model.Card;
+
+import java.util.List;
+
+/**
+ * Страница карточек коллекции в виде Relay connection.
+ * collectionId в схему не выводится — по нему считается totalCount, если его запросили.
+ */
+public record CardConnection(List<Edge> edges, PageInfo pageInfo, Integer collectionId) {
+
+  public record Edge(String cursor, Card node) {}
+
+  public record PageInfo(boolean hasNextPage, boolean hasPreviousPage, String startCursor, String endCursor) {}
+}
@@ -0,0 +1,30 @@
+package com.myapp.flashcards.dto;
+
+import com.myapp.flashcards.model.Card;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Курсор постраничного списка карточек: позиция (createdAt, id) в порядке сортировки,
+ * для клиента — непрозрачная base64url-строка.
+ */
+public record CardCursor(LocalDateTime createdAt, int id) {
+
+  public static String encode(Card card) {
+    String raw = card.getCreatedAt() + "|" + card.getId();
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static CardCursor decode(String cursor) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int sep = raw.lastIndexOf('|');
+      return new CardCursor(LocalDateTime.parse(raw.substring(0, sep)), Integer.parseInt(raw.substring(sep + 1)));
+    } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+      throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package com.myapp.flashcards.dto;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Формат файла импорта / экспорта карточек. При импорте из каждой строки берётся
+ * только текст карточки: первая колонка CSV / TSV или поле "text" объекта NDJSON.
+ */
+public enum CardFileFormat {
+  CSV("text/csv"),
+  TSV("text/tab-separated-values"),
+  NDJSON("application/x-ndjson");
+
+  private final String mediaType;
+
+  CardFileFormat(String mediaType) {
+    this.mediaType = mediaType;
+  }
+
+  public String mediaType() {
+    return mediaType;
+  }
+
+  /**
+   * Формат из параметра запроса (csv / tsv / ndjson), а если его нет — по Content-Type.
+   */
+  public static CardFileFormat resolve(String format, String contentType) {
+    if (format != null) {
+      return Arrays.stream(values())
+              .filter(f -> f.name().equalsIgnoreCase(format))
+              .findFirst()
+              .orElseThrow(() -> new IllegalArgumentException("Unknown import format: " + format));
+    }
+    if (contentType != null) {
+      String type = contentType.toLowerCase(Locale.ROOT);
+      for (CardFileFormat f : values()) {
+        if (type.startsWith(f.mediaType)) return f;
+      }
+    }
+    throw new IllegalArgumentException("Import format is not specified");
+  }
+}
@@ -0,0 +1,14 @@
+package com.myapp.flashcards.dto;
+
+import com.myapp.flashcards.model.Card;
+
+import java.util.List;
+
+/**
+ * Страница результатов полнотекстового поиска.
+ * snippet — фрагменты текста карточки, совпадения обёрнуты в &lt;mark&gt;…&lt;/mark&gt;.
+ */
+public record CardSearchConnection(List<Edge> edges, CardConnection.PageInfo pageInfo) {
+
+  public record Edge(String cursor, Card node, float rank, String snippet) {}
+}
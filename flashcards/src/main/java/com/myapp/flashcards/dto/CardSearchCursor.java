@@ -0,0 +1,26 @@
+package com.myapp.flashcards.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Курсор результатов поиска: позиция (rank, id) в порядке «rank по убыванию, id по возрастанию».
+ * rank — значение ts_rank_cd (real), Float.toString переживает круговой перевод без потерь.
+ */
+public record CardSearchCursor(float rank, int id) {
+
+  public String encode() {
+    String raw = rank + "|" + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static CardSearchCursor decode(String cursor) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int sep = raw.lastIndexOf('|');
+      return new CardSearchCursor(Float.parseFloat(raw.substring(0, sep)), Integer.parseInt(raw.substring(sep + 1)));
+    } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+  }
+}
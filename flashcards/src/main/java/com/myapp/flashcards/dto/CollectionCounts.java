@@ -0,0 +1,11 @@
+package com.myapp.flashcards.dto;
+
+/**
+ * Счётчики карточек одной коллекции: всего, новые, learning + relearn, review к повторению.
+ */
+public record CollectionCounts(int collectionId, int total, int newCount, int learningCount, int reviewCount) {
+
+  public static CollectionCounts empty(int collectionId) {
+    return new CollectionCounts(collectionId, 0, 0, 0, 0);
+  }
+}
@@ -1,6 +1,7 @@
 package com.myapp.flashcards.dto;
 
 
+import com.myapp.flashcards.model.SchedulerType;
 import lombok.*;
 import org.springframework.stereotype.Service;
 
@@ -14,5 +15,8 @@ public class CollectionInp {
   private Integer id;
   private UserInp user;
   private String name;
+  private SchedulerType scheduler;
+  private Integer newCardsPerDay;
+  private Integer reviewsPerDay;
   private Set<CardInp> cards;
 }
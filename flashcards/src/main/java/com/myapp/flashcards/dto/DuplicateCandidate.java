@@ -0,0 +1,9 @@
+package com.myapp.flashcards.dto;
+
+import com.myapp.flashcards.model.Card;
+
+/**
+ * Кандидат в дубликаты для коллекции: card — из неё, duplicate — похожая карточка
+ * из той же или другой коллекции пользователя.
+ */
+public record DuplicateCandidate(Card card, Card duplicate, double similarity, boolean exact) {}
@@ -0,0 +1,9 @@
+package com.myapp.flashcards.dto;
+
+import java.util.List;
+
+/**
+ * Итог импорта: сколько строк добавлено, сколько отклонено и почему (первые ошибки).
+ * Пары похожих карточек ищутся после импорта в фоне и появляются в duplicateCandidates.
+ */
+public record ImportResult(long imported, long rejected, List<String> errors) {}
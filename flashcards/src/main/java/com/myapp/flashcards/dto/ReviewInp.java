@@ -0,0 +1,9 @@
+package com.myapp.flashcards.dto;
+
+import com.myapp.flashcards.model.ReviewAnswer;
+
+/**
+ * Оценка, сделанная офлайн: reviewedAt — момент ответа на устройстве (ISO-8601, например 2024-05-01T10:15:30Z),
+ * clientId — уникальный id оценки на клиенте, он же ключ идемпотентности.
+ */
+public record ReviewInp(Integer cardId, ReviewAnswer answer, String reviewedAt, String clientId, Integer timeTakenMs) {}
@@ -0,0 +1,15 @@
+package com.myapp.flashcards.dto;
+
+import com.myapp.flashcards.model.Card;
+
+/**
+ * Итог одной оценки из submitReviews. card — состояние карточки после всей пачки (null для NOT_FOUND).
+ */
+public record ReviewResult(String clientId, Status status, Card card) {
+
+  public enum Status {
+    APPLIED,     // оценка применена
+    DUPLICATE,   // оценка с этим clientId уже была применена раньше или раньше в этой же пачке
+    NOT_FOUND    // карточки нет (удалена)
+  }
+}
@@ -0,0 +1,10 @@
+package com.myapp.flashcards.dto;
+
+import com.myapp.flashcards.model.Card;
+
+/**
+ * Ответ nextCard: одна карточка и остатки очереди сессии.
+ * card == null — показывать нечего; waitSeconds — через сколько наступит due ближайшей
+ * learning-карточки (null, если сессия закончена).
+ */
+public record StudyStep(Card card, int newLeft, int learningLeft, int reviewLeft, Integer waitSeconds) {}
@@ -0,0 +1,155 @@
+package com.myapp.flashcards.graphql.instrumentation;
+
+import graphql.ExecutionResult;
+import graphql.execution.ExecutionStepInfo;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.language.OperationDefinition;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Метрики GraphQL-операций:
+ * <ul>
+ *   <li>graphql.operation{operation, type, outcome} — время операции (p50 / p99);</li>
+ *   <li>graphql.operation.sql.statements{operation} — сколько SQL-запросов Hibernate она выполнила;</li>
+ *   <li>graphql.field{field="Type.field"} — время резолвера (p50 / p99).
+ *       Тривиальные резолверы (чтение свойства объекта) не замеряются.</li>
+ * </ul>
+ * Если в GraphQLContext есть {@link #TRACE_KEY} (см. TraceHeaderInterceptor),
+ * те же замеры по этому запросу возвращаются в extensions.trace ответа.
+ */
+@Component
+@RequiredArgsConstructor
+public class MetricsInstrumentation extends SimplePerformantInstrumentation {
+
+  public static final String TRACE_KEY = "graphqlTrace";
+
+  private static final double[] PERCENTILES = {0.5, 0.99};
+
+  private final MeterRegistry registry;
+  private final SqlStatementCounter sqlCounter;
+
+  private static final class State implements InstrumentationState {
+    final boolean trace;
+    final long start = System.nanoTime();
+    final Queue<Map<String, Object>> fields = new ConcurrentLinkedQueue<>();
+    AtomicInteger sql;
+    String operation = "unknown";
+    String type = "unknown";
+
+    State(boolean trace) {
+      this.trace = trace;
+    }
+  }
+
+  @Override
+  public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+    Boolean trace = parameters.getExecutionInput().getGraphQLContext().get(TRACE_KEY);
+    return new State(Boolean.TRUE.equals(trace));
+  }
+
+  @Override
+  public InstrumentationContext<ExecutionResult> beginExecution(InstrumentationExecutionParameters parameters,
+                                                                InstrumentationState state) {
+    ((State) state).sql = sqlCounter.begin();
+    return super.beginExecution(parameters, state);
+  }
+
+  @Override
+  public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                       InstrumentationState state) {
+    State s = (State) state;
+    OperationDefinition operation = parameters.getExecutionContext().getOperationDefinition();
+    s.operation = operation.getName() != null ? operation.getName() : "anonymous";
+    s.type = operation.getOperation().name().toLowerCase();
+    return super.beginExecuteOperation(parameters, state);
+  }
+
+  @Override
+  public InstrumentationContext<Object> beginFieldFetch(InstrumentationFieldFetchParameters parameters,
+                                                        InstrumentationState state) {
+    if (parameters.isTrivialDataFetcher()) return null;
+
+    State s = (State) state;
+    ExecutionStepInfo step = parameters.getExecutionStepInfo();
+    String field = step.getObjectType().getName() + "." + step.getFieldDefinition().getName();
+    long start = System.nanoTime();
+    return SimpleInstrumentationContext.whenCompleted((value, error) -> {
+      long nanos = System.nanoTime() - start;
+      Timer.builder("graphql.field")
+              .tag("field", field)
+              .publishPercentiles(PERCENTILES)
+              .register(registry)
+              .record(nanos, TimeUnit.NANOSECONDS);
+      if (s.trace) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("path", step.getPath().toString());
+        entry.put("field", field);
+        entry.put("startMs", millis(start - s.start));
+        entry.put("durationMs", millis(nanos));
+        s.fields.add(entry);
+      }
+    });
+  }
+
+  @Override
+  public CompletableFuture<ExecutionResult> instrumentExecutionResult(ExecutionResult result,
+                                                                      InstrumentationExecutionParameters parameters,
+                                                                      InstrumentationState state) {
+    State s = (State) state;
+    long nanos = System.nanoTime() - s.start;
+    int sql = 0;
+    if (s.sql != null) {
+      sql = s.sql.get();
+      sqlCounter.end(s.sql);
+    }
+
+    Timer.builder("graphql.operation")
+            .tag("operation", s.operation)
+            .tag("type", s.type)
+            .tag("outcome", result.getErrors().isEmpty() ? "success" : "error")
+            .publishPercentiles(PERCENTILES)
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    DistributionSummary.builder("graphql.operation.sql.statements")
+            .tag("operation", s.operation)
+            .register(registry)
+            .record(sql);
+
+    if (!s.trace) return CompletableFuture.completedFuture(result);
+
+    Map<String, Object> trace = new LinkedHashMap<>();
+    trace.put("operation", s.operation);
+    trace.put("durationMs", millis(nanos));
+    trace.put("sqlStatements", sql);
+    List<Map<String, Object>> fields = new ArrayList<>(s.fields);
+    fields.sort((a, b) -> Double.compare((double) a.get("startMs"), (double) b.get("startMs")));
+    trace.put("fields", fields);
+    return CompletableFuture.completedFuture(
+            ExecutionResult.newExecutionResult().from(result).addExtension("trace", trace).build());
+  }
+
+  private static double millis(long nanos) {
+    return Math.round(nanos / 1_000.0) / 1_000.0;
+  }
+}
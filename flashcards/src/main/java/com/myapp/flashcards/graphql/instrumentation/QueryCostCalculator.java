@@ -0,0 +1,77 @@
+package com.myapp.flashcards.graphql.instrumentation;
+
+import com.myapp.flashcards.service.CardService;
+import com.myapp.flashcards.service.CollectionDueSnapshots;
+import com.myapp.flashcards.srs.SrsConfig;
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.analysis.FieldComplexityEnvironment;
+import graphql.language.IntValue;
+import graphql.schema.GraphQLArgument;
+import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLTypeUtil;
+import graphql.schema.InputValueWithState;
+
+import java.util.Map;
+
+/**
+ * Стоимость поля для MaxQueryComplexityInstrumentation: 1 + стоимость вложенных полей,
+ * умноженная на ожидаемое число элементов.
+ * <ul>
+ *   <li>поле с аргументом first (страница Relay) или limit — его значение, но не больше CardService.MAX_PAGE_SIZE;
+ *       явный null считается значением по умолчанию из схемы (контроллер отдаст столько же),
+ *       без значения по умолчанию — defaultListSize;</li>
+ *   <li>edges внутри *Connection — 1: размер страницы уже учтён в родительском поле;</li>
+ *   <li>прочие списки — ожидаемый размер из LIST_SIZES или defaultListSize;</li>
+ *   <li>поля интроспекции (__schema, __type, …) — без множителей.</li>
+ * </ul>
+ */
+public class QueryCostCalculator implements FieldComplexityCalculator {
+
+  /* Ожидаемый размер списка по полю "Type.field" */
+  private static final Map<String, Integer> LIST_SIZES = Map.of(
+          "Query.startLearning", SrsConfig.DUE_CARDS_LIMIT,
+          "Query.cardsByCollectionId", 1000,
+          "Collection.cards", 1000,
+          "Query.collectionsByUserId", 20,
+          "User.collections", 20,
+          "Card.newIntervals", 4,
+          "Collection.dueForecast", CollectionDueSnapshots.FORECAST_DAYS
+  );
+
+  private final int defaultListSize;
+
+  public QueryCostCalculator(int defaultListSize) {
+    this.defaultListSize = defaultListSize;
+  }
+
+  @Override
+  public int calculate(FieldComplexityEnvironment env, int childComplexity) {
+    long cost = 1 + (long) childComplexity * multiplier(env);
+    return (int) Math.min(cost, Integer.MAX_VALUE);
+  }
+
+  private int multiplier(FieldComplexityEnvironment env) {
+    String parent = env.getParentType().getName();
+    String field = env.getFieldDefinition().getName();
+    if (parent.startsWith("__") || field.startsWith("__")) return 1;
+
+    GraphQLArgument pageArgument = env.getFieldDefinition().getArgument("first");
+    if (pageArgument == null) pageArgument = env.getFieldDefinition().getArgument("limit");
+    if (pageArgument != null) {
+      Object size = env.getArguments().get(pageArgument.getName());
+      int first = size instanceof Integer value ? value : defaultValue(pageArgument);
+      return Math.max(1, Math.min(first, CardService.MAX_PAGE_SIZE));
+    }
+    if (!(GraphQLTypeUtil.unwrapNonNull(env.getFieldDefinition().getType()) instanceof GraphQLList)) return 1;
+    if (parent.endsWith("Connection")) return 1;
+    return LIST_SIZES.getOrDefault(parent + "." + field, defaultListSize);
+  }
+
+  /* Значение аргумента по умолчанию из схемы (в SDL оно литерал) или defaultListSize */
+  private int defaultValue(GraphQLArgument argument) {
+    InputValueWithState value = argument.getArgumentDefaultValue();
+    if (value.getValue() instanceof IntValue literal) return literal.getValue().intValue();
+    if (value.getValue() instanceof Integer external) return external;
+    return defaultListSize;
+  }
+}
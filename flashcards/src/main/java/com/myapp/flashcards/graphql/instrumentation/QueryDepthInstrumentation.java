@@ -0,0 +1,31 @@
+package com.myapp.flashcards.graphql.instrumentation;
+
+import graphql.ExecutionResult;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.language.Field;
+
+/**
+ * Ограничение глубины запроса, кроме чистой интроспекции: запрос схемы из GraphiQL
+ * (TypeRef с цепочкой ofType) глубже любого рабочего запроса, а от злоупотреблений
+ * интроспекцией graphql-java защищает сам (GoodFaithIntrospection).
+ */
+public class QueryDepthInstrumentation extends MaxQueryDepthInstrumentation {
+
+  public QueryDepthInstrumentation(int maxDepth) {
+    super(maxDepth);
+  }
+
+  @Override
+  public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                       InstrumentationState state) {
+    boolean introspection = parameters.getExecutionContext().getOperationDefinition()
+            .getSelectionSet().getSelections().stream()
+            .allMatch(s -> s instanceof Field f && f.getName().startsWith("__"));
+    if (introspection) return SimpleInstrumentationContext.noOp();
+    return super.beginExecuteOperation(parameters, state);
+  }
+}
@@ -0,0 +1,57 @@
+package com.myapp.flashcards.graphql.instrumentation;
+
+import graphql.ErrorType;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.DataFetcherResult;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.schema.DataFetcher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Ограничение времени GraphQL-операции: после дедлайна резолверы больше не вызываются,
+ * поле получает null и ошибку ExecutionAborted, вложенные поля не загружаются.
+ * Уже начатый SQL-запрос не прерывается — проверка идёт перед каждым нетривиальным резолвером.
+ */
+@Component
+public class QueryTimeoutInstrumentation extends SimplePerformantInstrumentation {
+
+  private final Duration timeout;
+
+  public QueryTimeoutInstrumentation(@Value("${graphql-limits.timeout:PT10S}") Duration timeout) {
+    this.timeout = timeout;
+  }
+
+  private record Deadline(long nanos) implements InstrumentationState {
+    boolean passed() {
+      return System.nanoTime() - nanos > 0;
+    }
+  }
+
+  @Override
+  public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+    return new Deadline(System.nanoTime() + timeout.toNanos());
+  }
+
+  @Override
+  public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher,
+                                              InstrumentationFieldFetchParameters parameters,
+                                              InstrumentationState state) {
+    if (parameters.isTrivialDataFetcher()) return dataFetcher;
+    Deadline deadline = (Deadline) state;
+    return env -> {
+      if (!deadline.passed()) return dataFetcher.get(env);
+      return DataFetcherResult.newResult()
+              .error(GraphqlErrorBuilder.newError(env)
+                      .errorType(ErrorType.ExecutionAborted)
+                      .message("Query timeout of " + timeout.toMillis() + " ms exceeded")
+                      .build())
+              .build();
+    };
+  }
+}
@@ -0,0 +1,51 @@
+package com.myapp.flashcards.graphql.instrumentation;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Счётчик SQL-запросов Hibernate в рамках одной GraphQL-операции.
+ * <p>
+ * Регистрируется как StatementInspector фабрики сессий; счётчик привязан к потоку,
+ * поэтому учитываются запросы, выполненные в потоке операции (все синхронные резолверы).
+ * Запросы через JdbcTemplate мимо Hibernate не считаются.
+ */
+@Component
+public class SqlStatementCounter implements StatementInspector, HibernatePropertiesCustomizer {
+
+  private static final ThreadLocal<AtomicInteger> CURRENT = new ThreadLocal<>();
+
+  @Override
+  public void customize(Map<String, Object> hibernateProperties) {
+    hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+  }
+
+  @Override
+  public String inspect(String sql) {
+    AtomicInteger counter = CURRENT.get();
+    if (counter != null) counter.incrementAndGet();
+    return sql;
+  }
+
+  /**
+   * Начинает подсчёт в текущем потоке.
+   */
+  AtomicInteger begin() {
+    AtomicInteger counter = new AtomicInteger();
+    CURRENT.set(counter);
+    return counter;
+  }
+
+  /**
+   * Заканчивает подсчёт, если поток всё ещё считает в этот счётчик
+   * (операция могла завершиться в другом потоке — тогда его отвяжет следующий begin()).
+   */
+  void end(AtomicInteger counter) {
+    if (CURRENT.get() == counter) CURRENT.remove();
+  }
+}
@@ -0,0 +1,37 @@
+package com.myapp.flashcards.graphql.instrumentation;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Запрос с заголовком "X-GraphQL-Trace: true" получает в extensions.trace ответа
+ * время операции, число SQL-запросов и время каждого резолвера (см. MetricsInstrumentation).
+ * По умолчанию выключено: trace раскрывает устройство запросов, включается настройкой
+ * graphql-metrics.trace-header-enabled (переменная GRAPHQL_TRACE_HEADER_ENABLED) для разработки.
+ */
+@Component
+public class TraceHeaderInterceptor implements WebGraphQlInterceptor {
+
+  public static final String HEADER = "X-GraphQL-Trace";
+
+  private final boolean enabled;
+
+  public TraceHeaderInterceptor(@Value("${graphql-metrics.trace-header-enabled:false}") boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  @Override
+  public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+    if (enabled && "true".equalsIgnoreCase(request.getHeaders().getFirst(HEADER))) {
+      request.configureExecutionInput((input, builder) ->
+              builder.graphQLContext(Map.of(MetricsInstrumentation.TRACE_KEY, true)).build());
+    }
+    return chain.next(request);
+  }
+}
@@ -0,0 +1,21 @@
+package com.myapp.flashcards.graphql.loaders;
+
+import com.myapp.flashcards.dto.CollectionCounts;
+import com.myapp.flashcards.service.CardService;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * DataLoader для полей Collection.countCards / newCount / learningCount / reviewCount.
+ * Все четыре поля всех коллекций ответа загружаются одним запросом.
+ */
+@Component
+public class CollectionCountsBatchLoader {
+
+  public CollectionCountsBatchLoader(BatchLoaderRegistry registry, CardService cardService) {
+    registry.forTypePair(Integer.class, CollectionCounts.class)
+            .registerMappedBatchLoader((collectionIds, env) ->
+                    Mono.fromCallable(() -> cardService.countsByCollectionIds(collectionIds)));
+  }
+}
@@ -0,0 +1,21 @@
+package com.myapp.flashcards.graphql.loaders;
+
+import com.myapp.flashcards.service.CollectionDueSnapshots;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+/**
+ * DataLoader для поля Collection.dueForecast: сегодняшние снимки всех коллекций ответа одним запросом.
+ */
+@Component
+public class DueSnapshotBatchLoader {
+
+  public DueSnapshotBatchLoader(BatchLoaderRegistry registry, CollectionDueSnapshots snapshots) {
+    registry.forTypePair(Integer.class, CollectionDueSnapshots.Snapshot.class)
+            .registerMappedBatchLoader((collectionIds, env) ->
+                    Mono.fromCallable(() -> snapshots.findAll(collectionIds, LocalDate.now())));
+  }
+}
@@ -0,0 +1,90 @@
+package com.myapp.flashcards.graphql.preparsed;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.ExecutionInput;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Кэш разобранных и провалидированных GraphQL-документов и Automatic Persisted Queries (протокол Apollo).
+ * <p>
+ * Ключ — SHA-256 текста запроса (hex). Документ разбирается и проверяется по схеме один раз,
+ * дальше берётся из кэша. Клиент с APQ присылает только extensions.persistedQuery.sha256Hash:
+ * если документа с таким хешем нет, отвечаем PersistedQueryNotFound, и клиент повторяет запрос
+ * с полным текстом — документ регистрируется под хешем. Хеш, не совпавший с текстом, — PersistedQueryIdInvalid.
+ * <p>
+ * Проверки глубины, стоимости и времени (graphql-limits) выполняются при каждом выполнении,
+ * поэтому на документы из кэша тоже действуют.
+ */
+@Component
+public class PersistedDocumentProvider implements PreparsedDocumentProvider {
+
+  private final Cache<String, PreparsedDocumentEntry> documents;
+
+  public PersistedDocumentProvider(MeterRegistry registry,
+                                   @Value("${graphql-documents.maximum-size:1000}") long maximumSize) {
+    this.documents = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(registry, documents, "graphql.documents");
+  }
+
+  @Override
+  public CompletableFuture<PreparsedDocumentEntry> getDocumentAsync(ExecutionInput input,
+                                                                    Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+    String hash = persistedQueryHash(input);
+    String query = input.getQuery();
+
+    if (query == null || query.isBlank() || PersistedQuerySupport.PERSISTED_QUERY_MARKER.equals(query)) {
+      if (hash == null) return CompletableFuture.completedFuture(parseAndValidate.apply(input));
+      PreparsedDocumentEntry cached = documents.getIfPresent(hash);
+      return CompletableFuture.completedFuture(cached != null ? cached
+              : error("PersistedQueryNotFound", "PERSISTED_QUERY_NOT_FOUND", hash));
+    }
+
+    String key = sha256(query);
+    if (hash != null && !hash.equalsIgnoreCase(key)) {
+      return CompletableFuture.completedFuture(error("PersistedQueryIdInvalid", "PERSISTED_QUERY_ID_INVALID", hash));
+    }
+    return CompletableFuture.completedFuture(documents.get(key, k -> parseAndValidate.apply(input)));
+  }
+
+  /* Клиент Apollo узнаёт ошибку по message или extensions.code */
+  private static PreparsedDocumentEntry error(String message, String code, String hash) {
+    return new PreparsedDocumentEntry(GraphqlErrorBuilder.newError()
+            .message(message)
+            .extensions(Map.of("code", code, "persistedQueryId", hash))
+            .build());
+  }
+
+  /* extensions.persistedQuery.sha256Hash или null */
+  private static String persistedQueryHash(ExecutionInput input) {
+    if (!(input.getExtensions().get("persistedQuery") instanceof Map<?, ?> persistedQuery)) return null;
+    return persistedQuery.get("sha256Hash") instanceof String hash ? hash.toLowerCase() : null;
+  }
+
+  private static String sha256(String query) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(query.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(hash);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -1,13 +1,10 @@
 package com.myapp.flashcards.model;
 
-import com.myapp.flashcards.dto.NextIntervalDto;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
-import java.util.EnumMap;
-import java.util.Map;
 import java.util.Set;
 
 @Entity
@@ -32,6 +29,10 @@ public class Card {
   @JoinColumn(name = "collection_id", nullable = false)
   private Collection collection;
 
+  // владелец коллекции, копия для индекса (user_id, queue, due); заполняет триггер БД по collection_id
+  @Column(name = "user_id", insertable = false, updatable = false)
+  private Integer userId;
+
   @CreationTimestamp
   @Column(name = "created_at", updatable = false)
   @EqualsAndHashCode.Include
@@ -44,6 +45,7 @@ public class Card {
   @Column(nullable = false)
   private Integer queue;
 
+  // learning / relearn — UNIX-время в секундах, review — день (LocalDate.toEpochDay)
   @Column(nullable = false)
   private Integer due;
 
@@ -62,8 +64,15 @@ public class Card {
   @Column(name = "steps_left", nullable = false)
   private Integer stepsLeft;
 
-  @Transient
-  private Map<ReviewAnswer, NextIntervalDto> newIntervals = new EnumMap<>(ReviewAnswer.class);
+  // --- состояние памяти FSRS (null, пока карточку не оценивали под FSRS) ---
+  private Double stability;
+
+  private Double difficulty;
+
+  // --- оптимистическая блокировка: одновременные оценки с разных устройств не затирают друг друга ---
+  @Version
+  @Column(nullable = false)
+  private Integer version;
 
   public void setCollection(Collection collection) {
     this.collection = collection;
@@ -0,0 +1,36 @@
+package com.myapp.flashcards.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Пара похожих карточек (таблица card_duplicates).
+ * Пишется {@link com.myapp.flashcards.dedup.DuplicateIndex} при сохранении и импорте карточек;
+ * card — карточка, при сохранении которой пара найдена, duplicate — более ранняя.
+ */
+@Entity
+@Table(name = "card_duplicates")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardDuplicate {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Integer id;
+
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "card_id", nullable = false)
+  private Card card;
+
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "duplicate_id", nullable = false)
+  private Card duplicate;
+
+  @Column(nullable = false)
+  private Float similarity;
+
+  @Column(nullable = false)
+  private Boolean exact;
+}
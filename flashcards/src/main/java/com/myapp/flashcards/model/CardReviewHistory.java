@@ -0,0 +1,51 @@
+package com.myapp.flashcards.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Запись журнала повторений (таблица repetitions).
+ * Пишется пачками через {@link com.myapp.flashcards.service.ReviewHistoryWriter}.
+ */
+@Entity
+@Table(name = "repetitions")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardReviewHistory {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "card_id", nullable = false)
+  private Integer cardId;
+
+  @Column(nullable = false)
+  private Integer queue;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private ReviewAnswer answer;
+
+  @Column(name = "prev_ivl", nullable = false)
+  private Integer prevIvl;
+
+  @Column(name = "new_ivl", nullable = false)
+  private Integer newIvl;
+
+  @Column(nullable = false)
+  private Integer factor;
+
+  @Column(nullable = false)
+  private Integer due;
+
+  @Column(name = "reviewed_at", nullable = false)
+  private LocalDateTime reviewedAt;
+
+  @Column(name = "time_taken")
+  private Integer timeTaken;
+}
@@ -1,7 +1,10 @@
 package com.myapp.flashcards.model;
 
+import com.myapp.flashcards.srs.SrsConfig;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
@@ -10,6 +13,7 @@ import java.util.Set;
 
 @Entity
 @Table(name = "collections")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "collections")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -37,6 +41,17 @@ public class Collection {
   @Column(name = "created_at", updatable = false, nullable = false)
   private LocalDateTime createdAt;
 
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private SchedulerType scheduler = SchedulerType.SM2;
+
+  // --- дневные лимиты учебной сессии ---
+  @Column(name = "new_cards_per_day", nullable = false)
+  private Integer newCardsPerDay = SrsConfig.NEW_CARDS_PER_DAY;
+
+  @Column(name = "reviews_per_day", nullable = false)
+  private Integer reviewsPerDay = SrsConfig.REVIEWS_PER_DAY;
+
   public void setCards(Set<Card> cards) {
     if (cards == null) this.cards = null;
     else {
@@ -0,0 +1,37 @@
+package com.myapp.flashcards.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * Веса FSRS пользователя, подобранные FsrsOptimizer по его журналу повторений.
+ */
+@Entity
+@Table(name = "fsrs_parameters")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FsrsParameters {
+
+  @Id
+  @Column(name = "user_id")
+  private Integer userId;
+
+  @JdbcTypeCode(SqlTypes.ARRAY)
+  @Column(nullable = false, columnDefinition = "double precision[]")
+  private double[] weights;
+
+  @Column(name = "review_count", nullable = false)
+  private Integer reviewCount;
+
+  @Column(name = "log_loss")
+  private Double logLoss;
+
+  @Column(name = "updated_at", nullable = false)
+  private LocalDateTime updatedAt;
+}
@@ -0,0 +1,6 @@
+package com.myapp.flashcards.model;
+
+public enum SchedulerType {
+  SM2,   // DefaultSrsService: SM-2 / Anki
+  FSRS   // FsrsSrsService: Free Spaced Repetition Scheduler
+}
@@ -3,11 +3,14 @@ package com.myapp.flashcards.model;
 import jakarta.persistence.*;
         import lombok.*;
 import org.aspectj.weaver.patterns.TypePatternQuestions;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.Set;
 
 @Entity
 @Table(name = "users")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -0,0 +1,27 @@
+package com.myapp.flashcards.repository;
+
+import com.myapp.flashcards.model.CardDuplicate;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface CardDuplicateRepository extends JpaRepository<CardDuplicate, Integer> {
+
+  /*
+   * Пары, в которых хотя бы одна карточка из коллекции; обе карточки — сразу, одним запросом
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+  @Query("""
+          SELECT d FROM CardDuplicate d
+          JOIN FETCH d.card c
+          JOIN FETCH d.duplicate dup
+          WHERE c.collection.id = :cid OR dup.collection.id = :cid
+          ORDER BY d.similarity DESC, c.id, dup.id
+          """)
+  List<CardDuplicate> findByCollectionId(@Param("cid") Integer collectionId);
+}
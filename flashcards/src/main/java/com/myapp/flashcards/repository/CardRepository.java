@@ -1,34 +1,210 @@
 package com.myapp.flashcards.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import com.myapp.flashcards.model.Card;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 public interface CardRepository extends JpaRepository<Card, Integer> {
   Set<Card> findAllByCollectionId(Integer collectionId, Sort sort);
 
   Integer countByCollectionId(Integer collectionId);
 
+  /*
+   * Все счётчики для набора коллекций одним запросом:
+   * [collection_id, всего, new (queue = 0), learning + relearn (queue 1/3), review с dueDay ≤ :today (epoch day)]
+   */
+  @Query(value = """
+          SELECT col.id,
+                 COUNT(c.id),
+                 COUNT(c.id) FILTER (WHERE c.queue = 0),
+                 COUNT(c.id) FILTER (WHERE c.queue IN (1, 3)),
+                 COUNT(c.id) FILTER (WHERE c.queue = 2 AND c.due <= :today)
+          FROM collections col
+          LEFT JOIN cards c ON c.collection_id = col.id
+          WHERE col.id IN (:ids)
+          GROUP BY col.id
+          """, nativeQuery = true)
+  List<Object[]> countsByCollectionIds(@Param("ids") Collection<Integer> collectionIds,
+                                       @Param("today") int todayInDays);
 
-  /* новые (queue = 0) */
-  int countByCollectionIdAndQueue(Integer collectionId, int queue);
+  /*
+   * Постраничный список карточек коллекции (индекс cards(collection_id, created_at, id)).
+   * Следующая страница — сравнение кортежей (created_at, id) > курсора вместо OFFSET:
+   * PostgreSQL начинает чтение индекса прямо с курсора, любая страница стоит как первая.
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+  @Query("SELECT c FROM Card c WHERE c.collection.id = :cid ORDER BY c.createdAt, c.id")
+  List<Card> findPage(@Param("cid") Integer collectionId, Limit limit);
 
-  /* learning  (queue = 1)  + relearn (queue = 3) */
-  @Query("SELECT COUNT(c) FROM Card c WHERE c.collection.id = :cid AND c.queue IN (1,3)")
-  int countLearning(@Param("cid") Integer collectionId);
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+  @Query("""
+          SELECT c FROM Card c
+          WHERE c.collection.id = :cid
+            AND (c.createdAt, c.id) > (:createdAt, :id)
+          ORDER BY c.createdAt, c.id
+          """)
+  List<Card> findPageAfter(@Param("cid") Integer collectionId,
+                           @Param("createdAt") LocalDateTime createdAt,
+                           @Param("id") Integer id,
+                           Limit limit);
 
-  /* review‑карты, у которых dueDay ≤ :today */
+  /*
+   * Полнотекстовый поиск по карточкам пользователя (GIN-индекс по cards.search_vector):
+   * [id, rank, snippet] в порядке rank по убыванию, затем id.
+   * Следующая страница — строго после курсора (:afterRank, :afterId); без курсора оба параметра null.
+   * ts_headline дорогой (заново разбирает текст), поэтому считается только для строк страницы.
+   */
+  @Query(value = """
+          WITH matches AS (
+              SELECT c.id, ts_rank_cd(c.search_vector, q.query) AS rank
+              FROM cards c
+                       JOIN collections col ON col.id = c.collection_id,
+                   websearch_to_tsquery('russian', :query) AS q(query)
+              WHERE col.user_id = :userId
+                AND (CAST(:cid AS integer) IS NULL OR c.collection_id = CAST(:cid AS integer))
+                AND c.search_vector @@ q.query
+          ), page AS (
+              SELECT m.id, m.rank
+              FROM matches m
+              WHERE CAST(:afterRank AS real) IS NULL
+                 OR m.rank < CAST(:afterRank AS real)
+                 OR (m.rank = CAST(:afterRank AS real) AND m.id > CAST(:afterId AS integer))
+              ORDER BY m.rank DESC, m.id
+              LIMIT :limit
+          )
+          SELECT p.id,
+                 p.rank,
+                 ts_headline('russian', c.text, websearch_to_tsquery('russian', :query),
+                             'StartSel=<mark>, StopSel=</mark>, MaxWords=30, MinWords=10, MaxFragments=2, FragmentDelimiter=" … "')
+          FROM page p
+                   JOIN cards c ON c.id = p.id
+          ORDER BY p.rank DESC, p.id
+          """, nativeQuery = true)
+  List<Object[]> search(@Param("userId") Integer userId,
+                        @Param("query") String query,
+                        @Param("cid") Integer collectionId,
+                        @Param("afterRank") Float afterRank,
+                        @Param("afterId") Integer afterId,
+                        @Param("limit") int limit);
+
+  /*
+   * Карточки, готовые к показу (индекс cards(collection_id, queue, due)):
+   * new — все, learning/relearn — due (UNIX-метка) ≤ :nowSec,
+   * review — dueDay ≤ :today.
+   * Новые сортируются вместе с learning, дальше review и relearn.
+   * Загружаются read-only: состояние меняется только массовыми UPDATE,
+   * поэтому Hibernate не держит снимки и не делает dirty check.
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
   @Query("""
-          SELECT COUNT(c) FROM Card c
+          SELECT c FROM Card c
           WHERE c.collection.id = :cid
-            AND c.queue = 2
-            AND c.due <= :today
+            AND (c.queue = 0
+              OR (c.queue IN (1,3) AND c.due <= :nowSec)
+              OR (c.queue = 2 AND c.due <= :today))
+          ORDER BY CASE c.queue WHEN 0 THEN 1 ELSE c.queue END, c.createdAt, c.id
+          """)
+  List<Card> findDueCards(@Param("cid") Integer collectionId,
+                          @Param("today") int todayInDays,
+                          @Param("nowSec") int nowSec,
+                          Pageable pageable);
+
+  /*
+   * Карточки к показу по всем коллекциям пользователя, обе части — диапазоном по индексу (user_id, queue, due):
+   * learning/relearn с due ≤ :nowSec, затем review с dueDay ≤ :today; внутри — самые просроченные первыми
+   */
+  @Query(value = """
+          SELECT c.* FROM (
+              (SELECT * FROM cards
+               WHERE user_id = :userId AND queue IN (1, 3) AND due <= :nowSec
+               ORDER BY due
+               LIMIT :limit)
+              UNION ALL
+              (SELECT * FROM cards
+               WHERE user_id = :userId AND queue = 2 AND due <= :today
+               ORDER BY due
+               LIMIT :limit)
+          ) c
+          ORDER BY CASE c.queue WHEN 2 THEN 1 ELSE 0 END, c.due, c.id
+          LIMIT :limit
+          """, nativeQuery = true)
+  List<Card> findDueCardsForUser(@Param("userId") Integer userId,
+                                 @Param("nowSec") int nowSec,
+                                 @Param("today") int todayInDays,
+                                 @Param("limit") int limit);
+
+  /*
+   * Очередь учебной сессии одним запросом, строки (id, queue, due):
+   * learning/relearn с due до конца дня — все; review с dueDay ≤ :today и новые — не больше дневных остатков.
+   * Каждая часть идёт по своему индексу: (collection_id, queue, due) и (collection_id, created_at, id)
+   */
+  @Query(value = """
+          (SELECT id, queue, due FROM cards
+           WHERE collection_id = :cid AND queue IN (1, 3) AND due < :dayEndSec
+           ORDER BY due, id)
+          UNION ALL
+          (SELECT id, queue, due FROM cards
+           WHERE collection_id = :cid AND queue = 2 AND due <= :today
+           ORDER BY due, id
+           LIMIT :reviewLimit)
+          UNION ALL
+          (SELECT id, queue, due FROM cards
+           WHERE collection_id = :cid AND queue = 0
+           ORDER BY created_at, id
+           LIMIT :newLimit)
+          """, nativeQuery = true)
+  List<Object[]> findSessionQueue(@Param("cid") Integer collectionId,
+                                  @Param("dayEndSec") int dayEndSec,
+                                  @Param("today") int todayInDays,
+                                  @Param("reviewLimit") int reviewLimit,
+                                  @Param("newLimit") int newLimit);
+
+  /*
+   * Карточки пачки оценок одним запросом, вместе с коллекциями — по ним выбирается планировщик.
+   * По id: в этом порядке они и записываются при коммите, параллельные пачки блокируют строки в одном порядке
+   */
+  @Query("SELECT c FROM Card c JOIN FETCH c.collection WHERE c.id IN :ids ORDER BY c.id")
+  List<Card> findAllWithCollectionByIdIn(@Param("ids") Collection<Integer> ids);
+
+  /* new → learning одним UPDATE для всех выбранных карточек; версия растёт, как при обычном сохранении */
+  @Modifying
+  @Query("""
+          UPDATE Card c
+          SET c.type = 1, c.queue = 1, c.stepsLeft = :stepsLeft, c.due = :due, c.version = c.version + 1
+          WHERE c.id IN :ids AND c.queue = 0
           """)
-  int countDueReview(@Param("cid") Integer collectionId,
-                     @Param("today") int todayInDays);
+  int startLearning(@Param("ids") List<Integer> cardIds,
+                    @Param("stepsLeft") int stepsLeft,
+                    @Param("due") int due);
+
+  /*
+   * Потоковое чтение для экспорта: серверный курсор с fetch size, read-only.
+   * Вызывать внутри транзакции и закрывать Stream.
+   */
+  @QueryHints({
+          @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+          @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+  @Query("SELECT c FROM Card c WHERE c.collection.id = :cid ORDER BY c.id")
+  Stream<Card> streamByCollectionId(@Param("cid") Integer collectionId);
+
+  @QueryHints({
+          @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+          @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+  @Query("SELECT c FROM Card c WHERE c.collection.user.id = :userId ORDER BY c.collection.id, c.id")
+  Stream<Card> streamByUserId(@Param("userId") Integer userId);
 }
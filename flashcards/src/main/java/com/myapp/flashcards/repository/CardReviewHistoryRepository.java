@@ -1,4 +1,10 @@
 package com.myapp.flashcards.repository;
 
-public interface CardReviewHistoryRepository {
+import com.myapp.flashcards.model.CardReviewHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface CardReviewHistoryRepository extends JpaRepository<CardReviewHistory, Long> {
+  List<CardReviewHistory> findAllByCardIdOrderByReviewedAt(Integer cardId);
 }
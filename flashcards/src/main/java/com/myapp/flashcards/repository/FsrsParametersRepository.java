@@ -0,0 +1,7 @@
+package com.myapp.flashcards.repository;
+
+import com.myapp.flashcards.model.FsrsParameters;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface FsrsParametersRepository extends JpaRepository<FsrsParameters, Integer> {
+}
@@ -1,11 +1,20 @@
 package com.myapp.flashcards.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import com.myapp.flashcards.model.User;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Integer> {
+  /*
+   * Результат (id пользователя) — в кэше запросов, сам User — в регионе "users":
+   * повторный вход и старые токены без claim "id" не ходят в БД.
+   * Кэш сбрасывается при любой записи в users через Hibernate.
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
   Optional<User> findByEmail(String email);
   Boolean existsByEmail(String email);
 }
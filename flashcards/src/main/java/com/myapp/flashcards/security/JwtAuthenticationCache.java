@@ -0,0 +1,105 @@
+package com.myapp.flashcards.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.myapp.flashcards.model.User;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кэш проверенных JWT: ключ — SHA-256 от токена, значение — claims и
+ * облегчённый principal, собранный из claims (id + email) без запроса к users.
+ * Запись живёт не дольше, чем сам токен, и не дольше ttl.
+ * Повторный запрос с тем же токеном не проверяет подпись и не ходит в БД.
+ */
+@Component
+public class JwtAuthenticationCache {
+
+  private final JwtUtil jwtUtil;
+  private final UserDetailsService userDetailsService;
+  private final Cache<String, CachedJwt> cache;
+
+  public JwtAuthenticationCache(JwtUtil jwtUtil,
+                                UserDetailsService userDetailsService,
+                                @Value("${jwt.cache.maximum-size:50000}") long maximumSize,
+                                @Value("${jwt.cache.ttl:PT15M}") Duration ttl) {
+    this.jwtUtil = jwtUtil;
+    this.userDetailsService = userDetailsService;
+    this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(new TokenExpiry(ttl))
+            .build();
+  }
+
+  /**
+   * Возвращает principal для токена или null, если токен невалиден.
+   */
+  public CustomUserDetails authenticate(String token) {
+    String key = digest(token);
+    CachedJwt cached = cache.getIfPresent(key);
+    if (cached != null) return cached.principal();
+
+    Claims claims = jwtUtil.parseClaims(token);
+    if (claims == null) return null;
+
+    CachedJwt loaded = new CachedJwt(claims, principalFrom(claims));
+    cache.put(key, loaded);
+    return loaded.principal();
+  }
+
+  private CustomUserDetails principalFrom(Claims claims) {
+    Integer id = claims.get("id", Integer.class);
+    if (id == null) {
+      // старые токены без claim "id" — как раньше, через users
+      return (CustomUserDetails) userDetailsService.loadUserByUsername(claims.getSubject());
+    }
+    return new CustomUserDetails(new User(id, claims.getSubject(), null, null));
+  }
+
+  private static String digest(String token) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256")
+              .digest(token.getBytes(StandardCharsets.US_ASCII));
+      return Base64.getEncoder().encodeToString(hash);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private record CachedJwt(Claims claims, CustomUserDetails principal) {}
+
+  /**
+   * Время жизни записи: до exp токена, но не больше ttl.
+   */
+  private record TokenExpiry(Duration ttl) implements Expiry<String, CachedJwt> {
+
+    @Override
+    public long expireAfterCreate(String key, CachedJwt value, long currentTime) {
+      long ttlNanos = ttl.toNanos();
+      if (value.claims().getExpiration() == null) return ttlNanos;
+      long untilExp = TimeUnit.MILLISECONDS.toNanos(
+              value.claims().getExpiration().getTime() - System.currentTimeMillis());
+      return Math.max(0, Math.min(ttlNanos, untilExp));
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, CachedJwt value, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String key, CachedJwt value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
@@ -10,7 +10,6 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import com.myapp.flashcards.model.User;
@@ -21,18 +20,16 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-  private final JwtUtil jwtUtil;
-  private final UserDetailsService customUserDetailsService;
+  private final JwtAuthenticationCache jwtAuthenticationCache;
 
   @Override
   protected void doFilterInternal(HttpServletRequest request,
                                   HttpServletResponse response,
                                   FilterChain filterChain) throws ServletException, IOException {
     String jwt = parseJwt(request);
-    if (jwt != null && jwtUtil.validateJwtToken(jwt)) {
-      String email = jwtUtil.getEmailFromJwtToken(jwt);
-
-      UserDetails userDetails = customUserDetailsService.loadUserByUsername(email);
+    // principal берётся из кэша проверенных токенов: без повторной проверки подписи и без users
+    UserDetails userDetails = jwt != null ? jwtAuthenticationCache.authenticate(jwt) : null;
+    if (userDetails != null) {
       UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
               userDetails, null, null);
       authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
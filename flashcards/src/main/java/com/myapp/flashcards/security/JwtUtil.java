@@ -15,10 +15,14 @@ public class JwtUtil {
 
   private final SecretKey jwtSecret;
   private final long jwtExpirationMs;
+  private final JwtParser jwtParser;   // потокобезопасен, создаём один раз
 
   public JwtUtil(@Value("${jwt.secret}") String secret, @Value("${jwt.expirationMs}") long expirationMs) {
     this.jwtSecret = Keys.hmacShaKeyFor(Base64.getDecoder().decode(secret));
     this.jwtExpirationMs = expirationMs;
+    this.jwtParser = Jwts.parserBuilder()
+            .setSigningKey(jwtSecret)
+            .build();
   }
 
   public String generateJwtToken(User user) {
@@ -32,24 +36,25 @@ public class JwtUtil {
   }
 
   public String getEmailFromJwtToken(String token) {
-    return Jwts.parserBuilder()
-            .setSigningKey(jwtSecret)
-            .build()
-            .parseClaimsJws(token)
+    return jwtParser.parseClaimsJws(token)
             .getBody()
             .getSubject();
   }
 
   public boolean validateJwtToken(String authToken) {
+    return parseClaims(authToken) != null;
+  }
+
+  /**
+   * Проверяет подпись и срок действия токена и возвращает его claims,
+   * либо null, если токен невалиден.
+   */
+  public Claims parseClaims(String authToken) {
     try {
-      Jwts.parserBuilder()
-              .setSigningKey(jwtSecret)
-              .build()
-              .parseClaimsJws(authToken);
-      return true;
-    } catch (JwtException e) {
+      return jwtParser.parseClaimsJws(authToken).getBody();
+    } catch (JwtException | IllegalArgumentException e) {
       System.out.println("Ошибка при валидации JWT токена: " + e.getMessage());
     }
-    return false;
+    return null;
   }
 }
@@ -0,0 +1,91 @@
+package com.myapp.flashcards.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myapp.flashcards.dto.CardFileFormat;
+import com.myapp.flashcards.model.Card;
+import com.myapp.flashcards.model.Collection;
+import com.myapp.flashcards.repository.CardRepository;
+import com.myapp.flashcards.repository.CollectionRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Экспорт коллекции или всего аккаунта.
+ * Карточки читаются серверным курсором (CardRepository.stream*) в read-only транзакции,
+ * каждая сразу пишется в выходной поток и отсоединяется от контекста Hibernate —
+ * память не растёт с размером колоды.
+ */
+@Service
+public class CardExportService {
+
+  private final CardRepository cardRepository;
+  private final CollectionRepository collectionRepository;
+  private final EntityManager entityManager;
+  private final ObjectMapper objectMapper;
+  private final TransactionTemplate readOnlyTransaction;
+
+  public CardExportService(CardRepository cardRepository,
+                           CollectionRepository collectionRepository,
+                           EntityManager entityManager,
+                           ObjectMapper objectMapper,
+                           PlatformTransactionManager transactionManager) {
+    this.cardRepository = cardRepository;
+    this.collectionRepository = collectionRepository;
+    this.entityManager = entityManager;
+    this.objectMapper = objectMapper;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+  }
+
+  /**
+   * Проверяет, что коллекция есть, — до того, как клиенту уйдут заголовки ответа.
+   */
+  public Collection getCollection(Integer collectionId) {
+    return collectionRepository.findById(collectionId)
+            .orElseThrow(() -> new RuntimeException("Collection not found"));
+  }
+
+  public void exportCollection(Collection collection, CardFileFormat format, OutputStream out) {
+    export(List.of(collection), () -> cardRepository.streamByCollectionId(collection.getId()), format, out);
+  }
+
+  public void exportUser(Integer userId, CardFileFormat format, OutputStream out) {
+    List<Collection> collections = collectionRepository.findAllByUserId(userId).stream()
+            .sorted(Comparator.comparing(Collection::getId))
+            .toList();
+    export(collections, () -> cardRepository.streamByUserId(userId), format, out);
+  }
+
+  private void export(List<Collection> collections, Supplier<Stream<Card>> cards,
+                      CardFileFormat format, OutputStream out) {
+    Map<Integer, Collection> byId = collections.stream()
+            .collect(Collectors.toMap(Collection::getId, Function.identity()));
+
+    readOnlyTransaction.executeWithoutResult(status -> {
+      try (CardRowWriter writer = CardRowWriter.of(format, out, objectMapper);
+           Stream<Card> stream = cards.get()) {
+        for (Collection collection : collections) writer.collection(collection);
+        for (Card card : (Iterable<Card>) stream::iterator) {
+          // id коллекции берётся из прокси без её загрузки
+          writer.card(card, byId.get(card.getCollection().getId()));
+          entityManager.detach(card);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+}
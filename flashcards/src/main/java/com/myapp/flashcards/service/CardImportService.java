@@ -0,0 +1,160 @@
+package com.myapp.flashcards.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myapp.flashcards.dto.CardFileFormat;
+import com.myapp.flashcards.dto.ImportResult;
+import com.myapp.flashcards.model.Collection;
+import com.myapp.flashcards.repository.CollectionRepository;
+import com.myapp.flashcards.srs.SrsConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Массовый импорт карточек в коллекцию.
+ * Файл разбирается потоково (CardRowReader), карточки вставляются пачками JDBC
+ * с теми же SRS-полями, что и в CardService.saveCard. Каждая пачка — своя транзакция,
+ * так что память не зависит от размера файла, а уже вставленные пачки не откатываются
+ * из-за ошибки в конце файла. Дубликаты ищутся после импорта в фоне (DuplicateService.indexCollectionLater):
+ * транзакции пачек не ждут поиска по индексу.
+ */
+@Slf4j
+@Service
+public class CardImportService {
+
+  /** Как @Column(length) у Card.text */
+  static final int MAX_TEXT_LENGTH = 5000;
+  private static final int MAX_REPORTED_ERRORS = 100;
+
+  private static final String INSERT_SQL = """
+          INSERT INTO cards
+              (id, text, collection_id, user_id, created_at, type, queue, due, ivl, factor, reps, lapses, steps_left)
+          VALUES (?, ?, ?, ?, ?, 0, 0, 0, 0, ?, 0, 0, ?)
+          """;
+
+  /*
+   * id пачки берутся из последовательности cards заранее, одним запросом: getGeneratedKeys
+   * отключил бы у драйвера склейку пачки в многострочный INSERT (reWriteBatchedInserts)
+   */
+  private static final String NEXT_IDS_SQL =
+          "SELECT nextval(pg_get_serial_sequence('cards', 'id')) FROM generate_series(1, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final CollectionRepository collectionRepository;
+  private final CollectionCountsCache countsCache;
+  private final DuplicateService duplicateService;
+  private final ObjectMapper objectMapper;
+  private final int batchSize;
+
+  public CardImportService(JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           CollectionRepository collectionRepository,
+                           CollectionCountsCache countsCache,
+                           DuplicateService duplicateService,
+                           ObjectMapper objectMapper,
+                           @Value("${card-import.batch-size:1000}") int batchSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.collectionRepository = collectionRepository;
+    this.countsCache = countsCache;
+    this.duplicateService = duplicateService;
+    this.objectMapper = objectMapper;
+    this.batchSize = batchSize;
+  }
+
+  public ImportResult importCards(Integer collectionId, CardFileFormat format, InputStream body) throws IOException {
+    Collection collection = collectionRepository.findById(collectionId)
+            .orElseThrow(() -> new RuntimeException("Collection not found"));
+    Integer userId = collection.getUser().getId();
+
+    long imported = 0;
+    long rejected = 0;
+    List<String> errors = new ArrayList<>();
+    List<String> batch = new ArrayList<>(batchSize);
+    // вставленные карточки — в диапазоне id [firstId, lastId] (id берутся из последовательности)
+    int firstId = Integer.MAX_VALUE;
+    int lastId = 0;
+
+    try (CardRowReader reader = CardRowReader.of(format,
+            new InputStreamReader(body, StandardCharsets.UTF_8), objectMapper, MAX_TEXT_LENGTH)) {
+      for (CardRowReader.Row row = reader.next(); row != null; row = reader.next()) {
+        if (row.error() != null) {
+          rejected++;
+          if (errors.size() < MAX_REPORTED_ERRORS) errors.add("line " + row.line() + ": " + row.error());
+          continue;
+        }
+        batch.add(row.text());
+        if (batch.size() == batchSize) {
+          imported += batch.size();
+          for (int id : insert(collectionId, userId, batch)) {
+            firstId = Math.min(firstId, id);
+            lastId = Math.max(lastId, id);
+          }
+        }
+      }
+      imported += batch.size();
+      for (int id : insert(collectionId, userId, batch)) {
+        firstId = Math.min(firstId, id);
+        lastId = Math.max(lastId, id);
+      }
+    } finally {
+      // и при ошибке посреди файла: уже вставленные пачки остаются, их тоже нужно проиндексировать
+      if (lastId > 0) duplicateService.indexCollectionLater(userId, collectionId, firstId, lastId);
+    }
+
+    log.info("Imported cards: collection={}, format={}, imported={}, rejected={}",
+            collectionId, format, imported, rejected);
+    return new ImportResult(imported, rejected, errors);
+  }
+
+  /**
+   * Вставляет пачку новых карточек (queue = 0) и очищает список.
+   *
+   * @return id вставленных карточек
+   */
+  private List<Integer> insert(Integer collectionId, Integer userId, List<String> texts) {
+    if (texts.isEmpty()) return List.of();
+    Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+    List<Integer> ids = transactionTemplate.execute(status -> {
+      List<Integer> batchIds = jdbcTemplate.queryForList(NEXT_IDS_SQL, Integer.class, texts.size());
+      jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+        @Override
+        public void setValues(PreparedStatement ps, int i) throws SQLException {
+          ps.setInt(1, batchIds.get(i));
+          ps.setString(2, texts.get(i));
+          ps.setInt(3, collectionId);
+          ps.setInt(4, userId);     // триггер cards_set_user_id не ищет коллекцию для каждой строки
+          ps.setTimestamp(5, now);
+          ps.setInt(6, SrsConfig.INITIAL_FACTOR);
+          ps.setInt(7, SrsConfig.INITIAL_STEPS);
+        }
+
+        @Override
+        public int getBatchSize() {
+          return texts.size();
+        }
+      });
+      countsCache.newCardsAdded(collectionId, texts.size());
+      return batchIds;
+    });
+
+    texts.clear();
+    return ids;
+  }
+}
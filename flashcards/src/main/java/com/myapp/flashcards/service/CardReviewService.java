@@ -1,56 +1,258 @@
 package com.myapp.flashcards.service;
 
+import com.myapp.flashcards.dto.NextIntervalDto;
+import com.myapp.flashcards.dto.ReviewInp;
+import com.myapp.flashcards.dto.ReviewResult;
 import com.myapp.flashcards.model.Card;
+import com.myapp.flashcards.model.CardReviewHistory;
 import com.myapp.flashcards.model.ReviewAnswer;
 import com.myapp.flashcards.repository.CardRepository;
-import com.myapp.flashcards.srs.DefaultSrsService;
+import com.myapp.flashcards.srs.SrsConfig;
 import com.myapp.flashcards.srs.SrsService;
+import com.myapp.flashcards.srs.SrsServiceResolver;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class CardReviewService {
 
+  /* попыток оценки при конфликте версий */
+  private static final int MAX_ATTEMPTS = 3;
+  private static final long RETRY_BACKOFF_MS = 10;
+  /* оценок в одном submitReviews */
+  private static final int MAX_BATCH_REVIEWS = 1000;
+  /* UPDATE карточек пачки — JDBC-батчами такого размера (только в submitReviews, не для всего приложения) */
+  private static final int JDBC_BATCH_SIZE = 50;
+
   private final SrsService srsService;
+  private final SrsServiceResolver srsResolver;
   private final CardService cardService;
   private final CardRepository cardRepository;
+  private final ReviewHistoryWriter historyWriter;
+  private final CollectionCountsCache countsCache;
+  private final ReviewRequestLog requestLog;
+  private final TransactionTemplate transactionTemplate;
+  private final EntityManager entityManager;
 
   /**
    * Возвращает карточки, готовые к показу,
    * предварительно переводя новые (queue=0) в learning.
    */
+  @Transactional
   public List<Card> startLearning(Integer collectionId) {
 
-    List<Card> due = srsService.getDueCards(collectionId, LocalDate.now());
+    // Отбор и сортировка (сначала new/learning, потом по createdAt) — в БД
+    List<Card> due = srsService.getDueCards(collectionId, LocalDate.now(), SrsConfig.DUE_CARDS_LIMIT);
+
+    // 1. Новые → learning одним UPDATE в той же транзакции
+    int newCards = (int) due.stream().filter(c -> c.getQueue() == 0).count();
+    srsService.initializeLearning(due);
+    countsCache.movedToLearning(collectionId, newCards);
+
+    return due;
+  }
 
-    // 1. Новые → learning + немедленно сохраняем
-    for (Card card : due) {
-      if (card.getQueue() == 0) {
-        srsService.initializeLearning(card);
-        cardRepository.save(card);           // flush в БД, чтобы queue = 1
+  /**
+   * Карточки к показу сразу по всем коллекциям пользователя: learning, у которых подошёл due, затем review.
+   * Новые сюда не входят — их с дневным лимитом выдаёт учебная сессия коллекции.
+   */
+  public List<Card> dueCardsForUser(Integer userId, int limit) {
+    int nowSec = (int) (Instant.now().getEpochSecond() + SrsConfig.LEARN_AHEAD_SEC);
+    return cardRepository.findDueCardsForUser(userId, nowSec, (int) LocalDate.now().toEpochDay(),
+            Math.max(1, Math.min(limit, CardService.MAX_PAGE_SIZE)));
+  }
+
+  /**
+   * Интервалы для кнопок ответа — считаются только для запрошенных карточек.
+   */
+  public List<NextIntervalDto> previewIntervals(Card card) {
+    return srsResolver.forCard(card).previewIntervals(card);
+  }
+
+  /**
+   * Оценивает карточку планировщиком её коллекции (SM-2 или FSRS)
+   * и добавляет запись в журнал повторений.
+   * Журнал пишется асинхронно и не задерживает ответ клиенту.
+   * <p>
+   * Карточка защищена версией (@Version): если её одновременно оценили с другого устройства,
+   * коммит падает на проверке версии, и оценка повторяется на свежем состоянии — до MAX_ATTEMPTS раз.
+   * С idempotencyKey повтор той же мутации (например, после обрыва связи) карточку не меняет
+   * и возвращает её текущее состояние.
+   */
+  public Card gradeCard(Integer cardId, ReviewAnswer answer, Integer timeTakenMs, String idempotencyKey) {
+    Graded graded = inTransactionWithRetries(() -> grade(cardId, answer, idempotencyKey));
+    Card card = graded.card();
+    if (graded.applied()) {
+      historyWriter.append(new CardReviewHistory(null, card.getId(), graded.prevQueue(), answer,
+              graded.prevIvl(), card.getIvl(), card.getFactor(), card.getDue(),
+              LocalDateTime.now(), timeTakenMs));
+    }
+    return card;
+  }
+
+  private record Graded(Card card, boolean applied, int prevQueue, int prevIvl) {
+  }
+
+  /* Одна попытка оценки; вызывается в транзакции */
+  private Graded grade(Integer cardId, ReviewAnswer answer, String idempotencyKey) {
+    boolean first = idempotencyKey == null || requestLog.register(idempotencyKey, cardId);
+    Card card = cardService.getCardById(cardId)
+            .orElseThrow(() -> new RuntimeException("Card not found"));
+    if (!first) return new Graded(card, false, card.getQueue(), card.getIvl());
+
+    int prevQueue = card.getQueue();
+    int prevDue = card.getDue();
+    int prevIvl = card.getIvl();
+
+    srsResolver.forCard(card).processReview(card, answer);
+    // счётчики меняются только после коммита — неудачная попытка их не трогает
+    countsCache.cardChanged(card.getCollection().getId(), prevQueue, prevDue, card.getQueue(), card.getDue());
+    return new Graded(card, true, prevQueue, prevIvl);
+  }
+
+  /**
+   * Применяет оценки, накопленные офлайн, одной транзакцией.
+   * <p>
+   * Карточки загружаются одним IN-запросом, clientId регистрируются одним INSERT,
+   * изменённые карточки записываются при коммите JDBC-батчами по JDBC_BATCH_SIZE, в порядке id.
+   * Оценки одной карточки применяются по возрастанию reviewedAt, каждая — с моментом ответа,
+   * а не с текущим временем; время из будущего (расхождение часов) считается текущим.
+   * Оценки с уже применённым clientId пропускаются — пачку можно безопасно отправить повторно;
+   * повтор clientId внутри пачки применяется один раз (первый), остальные копии — DUPLICATE.
+   * При конфликте версий пачка целиком повторяется, как и reviewCard.
+   *
+   * @return итог по каждой оценке, в порядке запроса
+   */
+  public List<ReviewResult> submitReviews(List<ReviewInp> reviews) {
+    if (reviews.size() > MAX_BATCH_REVIEWS) {
+      throw new IllegalArgumentException("At most " + MAX_BATCH_REVIEWS + " reviews per batch");
+    }
+    Instant now = Instant.now();
+    List<OfflineReview> batch = new ArrayList<>(reviews.size());
+    Map<String, Integer> cardByClientId = new HashMap<>();
+    for (ReviewInp r : reviews) {
+      Instant reviewedAt = parseReviewedAt(r.reviewedAt());
+      Integer firstCardId = cardByClientId.putIfAbsent(r.clientId(), r.cardId());
+      if (firstCardId != null && !firstCardId.equals(r.cardId())) {
+        throw new IllegalArgumentException("clientId already used for another card: " + r.clientId());
       }
+      batch.add(new OfflineReview(r, reviewedAt.isAfter(now) ? now : reviewedAt, firstCardId != null));
     }
 
-    // 2. Рассчитываем интервалы после перевода
-    ((DefaultSrsService) srsService).attachPreviewIntervals(due);
+    BatchGraded graded = inTransactionWithRetries(() -> gradeBatch(batch));
+    graded.history().forEach(historyWriter::append);
+    return graded.results();
+  }
+
+  /* repeat — копия оценки с тем же clientId, что у одной из предыдущих в пачке */
+  private record OfflineReview(ReviewInp input, Instant reviewedAt, boolean repeat) {
+  }
+
+  private record BatchGraded(List<ReviewResult> results, List<CardReviewHistory> history) {
+  }
+
+  /* Одна попытка применить пачку; вызывается в транзакции */
+  private BatchGraded gradeBatch(List<OfflineReview> batch) {
+    entityManager.unwrap(Session.class).setJdbcBatchSize(JDBC_BATCH_SIZE);
+    List<OfflineReview> unique = batch.stream().filter(r -> !r.repeat()).toList();
+    Set<String> fresh = requestLog.registerAll(
+            unique.stream().map(r -> r.input().clientId()).toList(),
+            unique.stream().map(r -> r.input().cardId()).toList());
+    Map<Integer, Card> cards = cardRepository.findAllWithCollectionByIdIn(
+                    batch.stream().map(r -> r.input().cardId()).collect(Collectors.toSet())).stream()
+            .collect(Collectors.toMap(Card::getId, Function.identity()));
+
+    Map<Integer, List<OfflineReview>> byCard = unique.stream()
+            .filter(r -> cards.containsKey(r.input().cardId()) && fresh.contains(r.input().clientId()))
+            .collect(Collectors.groupingBy(r -> r.input().cardId()));
+    List<CardReviewHistory> history = new ArrayList<>();
+    byCard.forEach((cardId, cardReviews) -> {
+      Card card = cards.get(cardId);
+      SrsService srs = srsResolver.forCard(card);
+      int firstQueue = card.getQueue();
+      int firstDue = card.getDue();
+      cardReviews.sort(Comparator.comparing(OfflineReview::reviewedAt));
+      for (OfflineReview r : cardReviews) {
+        int prevQueue = card.getQueue();
+        int prevIvl = card.getIvl();
+        srs.processReview(card, r.input().answer(), r.reviewedAt());
+        history.add(new CardReviewHistory(null, cardId, prevQueue, r.input().answer(),
+                prevIvl, card.getIvl(), card.getFactor(), card.getDue(),
+                LocalDateTime.ofInstant(r.reviewedAt(), ZoneId.systemDefault()), r.input().timeTakenMs()));
+      }
+      // счётчики — по итоговому состоянию карточки, одним изменением на карточку
+      countsCache.cardChanged(card.getCollection().getId(), firstQueue, firstDue, card.getQueue(), card.getDue());
+    });
 
-    // 3. Сортировка: сначала те, что были new (теперь queue=1), потом по createdAt
-    return due.stream()
-            .sorted(Comparator
-                    .comparing(Card::getQueue)          // 1 → первых
-                    .thenComparing(Card::getCreatedAt))
+    List<ReviewResult> results = batch.stream()
+            .map(r -> {
+              Card card = cards.get(r.input().cardId());
+              if (card == null) return new ReviewResult(r.input().clientId(), ReviewResult.Status.NOT_FOUND, null);
+              ReviewResult.Status status = !r.repeat() && fresh.contains(r.input().clientId())
+                      ? ReviewResult.Status.APPLIED
+                      : ReviewResult.Status.DUPLICATE;
+              return new ReviewResult(r.input().clientId(), status, card);
+            })
             .toList();
+    return new BatchGraded(results, history);
   }
 
-  public Card gradeCard(Integer cardId, ReviewAnswer answer) {
-    Card card = cardService.getCardById(cardId)
-            .orElseThrow(() -> new RuntimeException("Card not found"));
-    srsService.processReview(card, answer);
-    return card;
+  private static Instant parseReviewedAt(String reviewedAt) {
+    try {
+      return OffsetDateTime.parse(reviewedAt).toInstant();
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("reviewedAt must be an ISO-8601 date-time with offset: " + reviewedAt);
+    }
+  }
+
+  /*
+   * Выполняет action в транзакции; при конфликте версий (карточку изменили параллельно)
+   * повторяет её целиком, до MAX_ATTEMPTS раз
+   */
+  private <T> T inTransactionWithRetries(Supplier<T> action) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return transactionTemplate.execute(status -> action.get());
+      } catch (OptimisticLockingFailureException e) {
+        if (attempt == MAX_ATTEMPTS) throw e;
+        log.debug("Concurrent card update, retrying review (attempt {}): {}", attempt, e.getMessage());
+        backoff(attempt);
+      }
+    }
+  }
+
+  /* Случайная пауза, чтобы одновременные попытки снова не совпали */
+  private static void backoff(int attempt) {
+    try {
+      Thread.sleep(ThreadLocalRandom.current().nextLong(RETRY_BACKOFF_MS * attempt, RETRY_BACKOFF_MS * attempt * 2));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while retrying review", e);
+    }
   }
 }
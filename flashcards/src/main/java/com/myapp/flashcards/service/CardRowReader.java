@@ -0,0 +1,247 @@
+package com.myapp.flashcards.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myapp.flashcards.dto.CardFileFormat;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковый разбор файла импорта: по одной строке за вызов next(),
+ * в памяти — только буфер чтения и текст текущей карточки.
+ */
+abstract class CardRowReader implements Closeable {
+
+  /**
+   * Строка файла: либо текст карточки, либо причина, по которой строка отклонена.
+   * line — номер строки файла, с которой начинается запись.
+   */
+  record Row(long line, String text, String error) {}
+
+  /**
+   * Текст длиннее этого не храним целиком — строка всё равно будет отклонена.
+   */
+  private final int maxTextLength;
+
+  CardRowReader(int maxTextLength) {
+    this.maxTextLength = maxTextLength;
+  }
+
+  static CardRowReader of(CardFileFormat format, Reader in, ObjectMapper objectMapper, int maxTextLength) {
+    return switch (format) {
+      case CSV -> new Delimited(in, ',', maxTextLength);
+      case TSV -> new Delimited(in, '\t', maxTextLength);
+      case NDJSON -> new NdJson(in, objectMapper, maxTextLength);
+    };
+  }
+
+  /**
+   * Следующая запись или null в конце потока. Пустые строки пропускаются.
+   */
+  abstract Row next() throws IOException;
+
+  Row row(long line, String text) {
+    if (text == null || text.isBlank()) return new Row(line, null, "empty text");
+    if (text.length() > maxTextLength) return new Row(line, null, "text is longer than " + maxTextLength);
+    return new Row(line, text, null);
+  }
+
+  /**
+   * CSV (RFC 4180) / TSV: текст карточки — первая колонка, остальные игнорируются.
+   * Поле в кавычках может содержать разделитель, перевод строки и "" (кавычку).
+   * Первая строка считается заголовком, только если её колонки совпадают с заголовком экспорта
+ * (CardRowWriter.DELIMITED_HEADER) — карточка с текстом "text" заголовком не считается.
+   */
+  private static final class Delimited extends CardRowReader {
+
+    private final Reader in;
+    private final char delimiter;
+    private final int limit;
+    private final char[] buf = new char[8192];
+    private int pos;
+    private int len;
+    private long line = 1;
+    private boolean first = true;
+    /* Колонки текущей записи целиком — собираются только для первой строки, чтобы узнать заголовок */
+    private List<String> cells;
+
+    Delimited(Reader in, char delimiter, int maxTextLength) {
+      super(maxTextLength);
+      this.in = in;
+      this.delimiter = delimiter;
+      this.limit = maxTextLength + 1;
+    }
+
+    @Override
+    Row next() throws IOException {
+      if (!first) return nextRecord();
+      first = false;
+      cells = new ArrayList<>();
+      Row row = nextRecord();
+      boolean header = CardRowWriter.DELIMITED_HEADER.equals(cells);
+      cells = null;
+      return header ? nextRecord() : row;
+    }
+
+    private Row nextRecord() throws IOException {
+      int c = read();
+      while (c == '\r' || c == '\n') {
+        if (c == '\n') line++;
+        c = read();
+      }
+      if (c == -1) return null;
+
+      long startLine = line;
+      StringBuilder text = new StringBuilder();
+      StringBuilder cell = new StringBuilder();
+      int field = 0;
+      boolean quoted = false;
+      boolean fieldStart = true;
+
+      while (true) {
+        if (c == -1) {
+          endCell(field, text, cell);
+          return quoted ? new Row(startLine, null, "unterminated quoted field") : row(startLine, text.toString());
+        }
+        if (quoted) {
+          if (c == '"') {
+            c = read();
+            if (c != '"') {            // закрывающая кавычка
+              quoted = false;
+              continue;
+            }
+          } else if (c == '\n') {
+            line++;
+          }
+        } else if (c == '"' && fieldStart) {
+          quoted = true;
+          fieldStart = false;
+          c = read();
+          continue;
+        } else if (c == delimiter) {
+          endCell(field, text, cell);
+          field++;
+          fieldStart = true;
+          c = read();
+          continue;
+        } else if (c == '\r' || c == '\n') {
+          if (c == '\r') {
+            c = read();
+            if (c != '\n') unread(c);
+          }
+          line++;
+          endCell(field, text, cell);
+          return row(startLine, text.toString());
+        }
+        if (field == 0 && text.length() < limit) text.append((char) c);
+        else if (field > 0 && cells != null && cell.length() < limit) cell.append((char) c);
+        fieldStart = false;
+        c = read();
+      }
+    }
+
+    private void endCell(int field, StringBuilder text, StringBuilder cell) {
+      if (cells == null) return;
+      cells.add(field == 0 ? text.toString() : cell.toString());
+      cell.setLength(0);
+    }
+
+    private int read() throws IOException {
+      if (pos == len) {
+        len = in.read(buf, 0, buf.length);
+        pos = 0;
+        if (len <= 0) {
+          len = 0;
+          return -1;
+        }
+      }
+      return buf[pos++];
+    }
+
+    private void unread(int c) {
+      if (c != -1) pos--;
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+
+  /**
+   * NDJSON: по объекту на строку, текст карточки — поле "text".
+   * Строки с "kind", отличным от "card", — метаданные экспорта, не карточки.
+   * Строка длиннее maxLineLength в память не читается: остаток пропускается, строка отклоняется.
+   */
+  private static final class NdJson extends CardRowReader {
+
+    /* Запас на экранирование (до 6 символов escape-последовательности на символ текста) и остальные поля объекта */
+    private static final int JSON_OVERHEAD = 1024;
+
+    private final BufferedReader in;
+    private final ObjectMapper objectMapper;
+    private final int maxLineLength;
+    private final StringBuilder buf = new StringBuilder();
+    private long line;
+
+    NdJson(Reader in, ObjectMapper objectMapper, int maxTextLength) {
+      super(maxTextLength);
+      this.in = new BufferedReader(in, 8192);
+      this.objectMapper = objectMapper;
+      this.maxLineLength = maxTextLength * 6 + JSON_OVERHEAD;
+    }
+
+    @Override
+    Row next() throws IOException {
+      while (true) {
+        int length = readLine();
+        line++;
+        if (length < 0) return null;
+        if (length > maxLineLength) return new Row(line, null, "line is longer than " + maxLineLength);
+        String s = buf.toString();
+        if (s.isBlank()) continue;
+
+        try {
+          JsonNode node = objectMapper.readTree(s);
+          // строки экспорта с метаданными ({"kind":"collection",...}) пропускаем
+          if (node.has("kind") && !"card".equals(node.path("kind").asText())) continue;
+          JsonNode text = node.path("text");
+          if (!text.isTextual()) return new Row(line, null, "no \"text\" field");
+          return row(line, text.asText());
+        } catch (JsonProcessingException e) {
+          return new Row(line, null, "malformed JSON");
+        }
+      }
+    }
+
+    /*
+     * Строка без перевода строки — в buf, не больше maxLineLength символов.
+     * Возвращает полную длину строки (может быть больше сохранённой) или -1 в конце потока
+     */
+    private int readLine() throws IOException {
+      buf.setLength(0);
+      int length = 0;
+      int c = in.read();
+      if (c == -1) return -1;
+      while (c != -1 && c != '\n') {
+        if (c != '\r') {
+          if (length < maxLineLength) buf.append((char) c);
+          if (length < Integer.MAX_VALUE) length++;
+        }
+        c = in.read();
+      }
+      return length;
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+}
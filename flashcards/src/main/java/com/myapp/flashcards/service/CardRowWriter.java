@@ -0,0 +1,162 @@
+package com.myapp.flashcards.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myapp.flashcards.dto.CardFileFormat;
+import com.myapp.flashcards.model.Card;
+import com.myapp.flashcards.model.Collection;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Потоковая запись экспорта: каждая карточка пишется сразу в выходной поток.
+ * Текст карточки — первое поле (CSV / TSV) или поле "text" (NDJSON),
+ * поэтому файл экспорта можно снова загрузить через импорт.
+ */
+abstract class CardRowWriter implements Closeable {
+
+  /**
+   * Заголовок CSV / TSV экспорта; по нему CardRowReader отличает заголовок от карточки.
+   */
+  static final List<String> DELIMITED_HEADER = List.of(
+          "text", "collection_id", "collection_name", "id", "created_at",
+          "type", "queue", "due", "ivl", "factor", "reps", "lapses", "steps_left", "stability", "difficulty"
+  );
+
+  static CardRowWriter of(CardFileFormat format, OutputStream out, ObjectMapper objectMapper) throws IOException {
+    return switch (format) {
+      case CSV -> new Delimited(out, ',');
+      case TSV -> new Delimited(out, '\t');
+      case NDJSON -> new NdJson(out, objectMapper);
+    };
+  }
+
+  /** Метаданные коллекции — до её карточек. */
+  abstract void collection(Collection collection) throws IOException;
+
+  abstract void card(Card card, Collection collection) throws IOException;
+
+  /**
+   * NDJSON: строка {"kind":"collection",...} перед карточками коллекции,
+   * затем по строке {"kind":"card",...} на карточку со всеми SRS-полями.
+   */
+  private static final class NdJson extends CardRowWriter {
+
+    private final JsonGenerator json;
+
+    NdJson(OutputStream out, ObjectMapper objectMapper) throws IOException {
+      this.json = objectMapper.getFactory().createGenerator(out);
+      this.json.setRootValueSeparator(null);   // строки разделяем сами, через '\n'
+    }
+
+    @Override
+    void collection(Collection collection) throws IOException {
+      json.writeStartObject();
+      json.writeStringField("kind", "collection");
+      json.writeNumberField("id", collection.getId());
+      json.writeStringField("name", collection.getName());
+      json.writeStringField("scheduler", collection.getScheduler().name());
+      json.writeStringField("createdAt", String.valueOf(collection.getCreatedAt()));
+      json.writeEndObject();
+      json.writeRaw('\n');
+    }
+
+    @Override
+    void card(Card card, Collection collection) throws IOException {
+      json.writeStartObject();
+      json.writeStringField("kind", "card");
+      json.writeNumberField("collectionId", collection.getId());
+      json.writeNumberField("id", card.getId());
+      json.writeStringField("text", card.getText());
+      json.writeStringField("createdAt", String.valueOf(card.getCreatedAt()));
+      json.writeNumberField("type", card.getType());
+      json.writeNumberField("queue", card.getQueue());
+      json.writeNumberField("due", card.getDue());
+      json.writeNumberField("ivl", card.getIvl());
+      json.writeNumberField("factor", card.getFactor());
+      json.writeNumberField("reps", card.getReps());
+      json.writeNumberField("lapses", card.getLapses());
+      json.writeNumberField("stepsLeft", card.getStepsLeft());
+      json.writeFieldName("stability");
+      writeNullable(card.getStability());
+      json.writeFieldName("difficulty");
+      writeNullable(card.getDifficulty());
+      json.writeEndObject();
+      json.writeRaw('\n');
+    }
+
+    private void writeNullable(Double value) throws IOException {
+      if (value == null) json.writeNull();
+      else json.writeNumber(value);
+    }
+
+    @Override
+    public void close() throws IOException {
+      json.close();
+    }
+  }
+
+  /**
+   * CSV / TSV: заголовок и по строке на карточку; метаданные коллекции — в колонках каждой строки.
+   */
+  private static final class Delimited extends CardRowWriter {
+
+    private final Writer out;
+    private final char delimiter;
+
+    Delimited(OutputStream out, char delimiter) throws IOException {
+      this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+      this.delimiter = delimiter;
+      for (int i = 0; i < DELIMITED_HEADER.size(); i++) {
+        if (i > 0) this.out.write(delimiter);
+        this.out.write(DELIMITED_HEADER.get(i));
+      }
+      this.out.write('\n');
+    }
+
+    @Override
+    void collection(Collection collection) {
+      // метаданные пишутся в колонках collection_id / collection_name
+    }
+
+    @Override
+    void card(Card card, Collection collection) throws IOException {
+      Object[] row = {
+              card.getText(), collection.getId(), collection.getName(), card.getId(), card.getCreatedAt(),
+              card.getType(), card.getQueue(), card.getDue(), card.getIvl(), card.getFactor(),
+              card.getReps(), card.getLapses(), card.getStepsLeft(), card.getStability(), card.getDifficulty()
+      };
+      for (int i = 0; i < row.length; i++) {
+        if (i > 0) out.write(delimiter);
+        if (row[i] instanceof String s) text(s);
+        else if (row[i] != null) out.write(row[i].toString());   // null → пустое поле
+      }
+      out.write('\n');
+    }
+
+    /** Текстовое поле: в кавычках, если содержит разделитель, кавычку или перевод строки. */
+    private void text(String s) throws IOException {
+      boolean quote = s.indexOf(delimiter) >= 0 || s.indexOf('"') >= 0
+              || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0;
+      if (!quote) {
+        out.write(s);
+        return;
+      }
+      out.write('"');
+      out.write(s.replace("\"", "\"\""));
+      out.write('"');
+    }
+
+    @Override
+    public void close() throws IOException {
+      out.close();
+    }
+  }
+}
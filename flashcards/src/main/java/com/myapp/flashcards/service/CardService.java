@@ -1,17 +1,26 @@
 package com.myapp.flashcards.service;
 
+import com.myapp.flashcards.dedup.DuplicateIndex;
+import com.myapp.flashcards.dto.CardConnection;
+import com.myapp.flashcards.dto.CardCursor;
 import com.myapp.flashcards.dto.CardInp;
+import com.myapp.flashcards.dto.CardSearchConnection;
+import com.myapp.flashcards.dto.CardSearchCursor;
+import com.myapp.flashcards.dto.CollectionCounts;
 import com.myapp.flashcards.mapper.CardMapper;
 import com.myapp.flashcards.model.Card;
 import com.myapp.flashcards.model.Collection;
 import com.myapp.flashcards.repository.CardRepository;
 import com.myapp.flashcards.repository.CollectionRepository;
+import com.myapp.flashcards.srs.SrsConfig;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -19,9 +28,14 @@ import java.util.Set;
 @RequiredArgsConstructor
 public class CardService {
 
+  /** Больше карточек за одну страницу не отдаём, сколько бы ни попросили в first */
+  public static final int MAX_PAGE_SIZE = 500;
+
   private final CardRepository cardRepository;
   private final CollectionRepository collectionRepository;
   private final CardMapper cardMapper;
+  private final CollectionCountsCache countsCache;
+  private final DuplicateIndex duplicateIndex;
 
   public Card saveCard(CardInp cardInp) {
     Card card = cardMapper.toEntity(cardInp);
@@ -29,27 +43,35 @@ public class CardService {
       // обновление текстового поля, как было
       Card exist = cardRepository.findById(card.getId())
               .orElseThrow(() -> new RuntimeException("Card not found"));
-      if (!exist.getText().equals(card.getText())) {
+      boolean textChanged = !exist.getText().equals(card.getText());
+      if (textChanged) {
         exist.setText(card.getText());
       }
-      return cardRepository.save(exist);
+      Card saved = cardRepository.save(exist);
+      if (textChanged) {
+        duplicateIndex.reindex(saved.getCollection().getUser().getId(), saved.getId(), saved.getText());
+      }
+      return saved;
     }
     // создание новой карты
     Collection coll = collectionRepository.findById(cardInp.getCollectionId())
             .orElseThrow(() -> new RuntimeException("Collection not found"));
     card.setCollection(coll);
 
-    // инициализация SRS-параметров по умолчанию (как в Anki)
+    // инициализация SRS-параметров по умолчанию (как в Anki; те же значения ставит CardImportService)
     card.setType(0);
     card.setQueue(0);
     card.setDue(0);
     card.setIvl(0);
-    card.setFactor(2500);
+    card.setFactor(SrsConfig.INITIAL_FACTOR);
     card.setReps(0);
     card.setLapses(0);
-    card.setStepsLeft(2);  // количество learning-шагов по умолчанию
+    card.setStepsLeft(SrsConfig.INITIAL_STEPS);  // количество learning-шагов по умолчанию
 
-    return cardRepository.save(card);
+    Card saved = cardRepository.save(card);
+    countsCache.cardAdded(coll.getId(), saved.getQueue(), saved.getDue());
+    duplicateIndex.index(coll.getUser().getId(), List.of(saved.getId()), List.of(saved.getText()));
+    return saved;
   }
 
   public Optional<Card> getCardById(int id) {
@@ -60,23 +82,80 @@ public class CardService {
     return cardRepository.findAllByCollectionId(collectionId, Sort.by("createdAt"));
   }
 
-  public Integer countByCollectionId(Integer collectionId) {
-    return cardRepository.countByCollectionId(collectionId);
+  /**
+   * Страница карточек коллекции в порядке (createdAt, id), начиная после курсора after.
+   * Читается first + 1 строка — лишняя говорит, что есть следующая страница.
+   */
+  public CardConnection getCardsPage(Integer collectionId, int first, String after) {
+    int limit = Math.max(1, Math.min(first, MAX_PAGE_SIZE));
+    List<Card> rows;
+    if (after == null) {
+      rows = cardRepository.findPage(collectionId, Limit.of(limit + 1));
+    } else {
+      CardCursor cursor = CardCursor.decode(after);
+      rows = cardRepository.findPageAfter(collectionId, cursor.createdAt(), cursor.id(), Limit.of(limit + 1));
+    }
+
+    boolean hasNextPage = rows.size() > limit;
+    List<CardConnection.Edge> edges = rows.stream()
+            .limit(limit)
+            .map(c -> new CardConnection.Edge(CardCursor.encode(c), c))
+            .toList();
+    CardConnection.PageInfo pageInfo = new CardConnection.PageInfo(hasNextPage, after != null,
+            edges.isEmpty() ? null : edges.get(0).cursor(),
+            edges.isEmpty() ? null : edges.get(edges.size() - 1).cursor());
+    return new CardConnection(edges, pageInfo, collectionId);
   }
 
-  public int countNew(Integer collId) {
-      return cardRepository.countByCollectionIdAndQueue(collId, 0);
+  /**
+   * Полнотекстовый поиск по карточкам пользователя (во всех его коллекциях или в одной).
+   * Порядок — по релевантности (ts_rank_cd), курсор — (rank, id) последней строки.
+   */
+  public CardSearchConnection searchCards(Integer userId, String query, Integer collectionId,
+                                          int first, String after) {
+    if (query == null || query.isBlank()) {
+      return new CardSearchConnection(List.of(), new CardConnection.PageInfo(false, false, null, null));
+    }
+    int limit = Math.max(1, Math.min(first, MAX_PAGE_SIZE));
+    CardSearchCursor cursor = after == null ? null : CardSearchCursor.decode(after);
+    List<Object[]> rows = cardRepository.search(userId, query, collectionId,
+            cursor == null ? null : cursor.rank(),
+            cursor == null ? null : cursor.id(),
+            limit + 1);
+
+    boolean hasNextPage = rows.size() > limit;
+    List<Object[]> page = rows.subList(0, Math.min(limit, rows.size()));
+
+    // сами карточки — одним запросом по id страницы
+    Map<Integer, Card> cards = new HashMap<>();
+    cardRepository.findAllById(page.stream().map(row -> (Integer) row[0]).toList())
+            .forEach(card -> cards.put(card.getId(), card));
+
+    List<CardSearchConnection.Edge> edges = page.stream()
+            .map(row -> {
+              int id = (Integer) row[0];
+              float rank = ((Number) row[1]).floatValue();
+              return new CardSearchConnection.Edge(new CardSearchCursor(rank, id).encode(),
+                      cards.get(id), rank, (String) row[2]);
+            })
+            .toList();
+    CardConnection.PageInfo pageInfo = new CardConnection.PageInfo(hasNextPage, after != null,
+            edges.isEmpty() ? null : edges.get(0).cursor(),
+            edges.isEmpty() ? null : edges.get(edges.size() - 1).cursor());
+    return new CardSearchConnection(edges, pageInfo);
   }
 
-  public int countLearning(Integer collId) {
-      return cardRepository.countLearning(collId);
+  public Integer countByCollectionId(Integer collectionId) {
+    return cardRepository.countByCollectionId(collectionId);
   }
 
-  public int countDueReview(Integer collId) {
-      Collection coll = collectionRepository.findById(collId)
-               .orElseThrow(() -> new RuntimeException("Collection not found"));
-      int today = (int) ChronoUnit.DAYS.between(
-              coll.getCreatedAt().toLocalDate(), LocalDate.now());
-      return cardRepository.countDueReview(collId, today);
+  /**
+   * Счётчики для всех переданных коллекций: из кэша, недостающие — одним GROUP BY-запросом.
+   * Коллекции без карточек тоже попадают в результат (с нулями).
+   */
+  public Map<Integer, CollectionCounts> countsByCollectionIds(Set<Integer> collectionIds) {
+    Map<Integer, CollectionCounts> result = new HashMap<>(countsCache.getAll(collectionIds));
+    collectionIds.forEach(id -> result.putIfAbsent(id, CollectionCounts.empty(id)));
+    return result;
   }
 }
@@ -0,0 +1,266 @@
+package com.myapp.flashcards.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.myapp.flashcards.dto.CollectionCounts;
+import com.myapp.flashcards.repository.CardRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Кэш счётчиков new / learning / review по коллекциям.
+ * Отсутствующие коллекции загружаются из сегодняшних снимков с их дельтами (см. CollectionDueSnapshots,
+ * DueSnapshotJob), для коллекций без снимка — одним GROUP BY-запросом; дальше кэш поддерживается дельтами
+ * из saveCard / импорта / startLearning / reviewCard. Каждая дельта в транзакции записи
+ * добавляется строкой в collection_count_deltas, так что снимок с дельтами остаётся точным
+ * и после выселения записи из кэша, а сами снимки периодически пересчитываются по cards.
+ * Смена дня обрабатывается лениво: запись, посчитанная вчера, при чтении
+ * перезагружается (review-карты, ставшие due сегодня, видны только в БД).
+ * После каждого изменения публикуется событие {@link Changed} (см. DueCountsPublisher).
+ */
+@Component
+public class CollectionCountsCache {
+
+  /** Счётчики коллекции изменились (событие после коммита). */
+  public record Changed(int collectionId) {}
+
+  private final CardRepository cardRepository;
+  private final CollectionDueSnapshots snapshots;
+  private final ApplicationEventPublisher events;
+  private final Cache<Integer, Counters> cache;
+  /*
+   * Версии коллекций (по полосам id): растут с каждой дельтой / инвалидацией коллекции,
+   * по ним load() замечает изменения загружаемых коллекций, прошедшие во время запроса.
+   * Запись в другую коллекцию той же полосы даст лишнее перечитывание, но не потерю дельты
+   */
+  private static final int VERSION_STRIPES = 1024;
+  private static final int MAX_LOAD_ATTEMPTS = 3;
+  private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+  public CollectionCountsCache(CardRepository cardRepository,
+                               CollectionDueSnapshots snapshots,
+                               ApplicationEventPublisher events,
+                               @Value("${collection-counts.cache.maximum-size:10000}") long maximumSize,
+                               @Value("${collection-counts.cache.expire-after-write:PT10M}") Duration expireAfterWrite) {
+    this.cardRepository = cardRepository;
+    this.snapshots = snapshots;
+    this.events = events;
+    // expireAfterWrite — страховка от накопленного расхождения с БД
+    this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWrite)
+            .build();
+  }
+
+  /**
+   * Счётчики для набора коллекций. Без SQL, если все они уже в кэше и посчитаны сегодня.
+   */
+  public Map<Integer, CollectionCounts> getAll(Set<Integer> collectionIds) {
+    LocalDate today = LocalDate.now();
+    Map<Integer, Counters> counters = cache.getAll(collectionIds, ids -> load(ids, today));
+
+    Set<Integer> stale = counters.entrySet().stream()
+            .filter(e -> !e.getValue().day.equals(today))
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toSet());
+    if (!stale.isEmpty()) {
+      cache.invalidateAll(stale);
+      Map<Integer, Counters> reloaded = load(stale, today);
+      cache.putAll(reloaded);
+      counters = new HashMap<>(counters);
+      counters.putAll(reloaded);
+    }
+
+    Map<Integer, CollectionCounts> result = new HashMap<>();
+    counters.forEach((id, c) -> result.put(id, c.snapshot(id)));
+    return result;
+  }
+
+  /* ---------- дельты с путей записи (применяются после коммита) ---------- */
+
+  /** Добавлена карточка в состоянии (queue, due). */
+  public void cardAdded(Integer collectionId, int queue, int due) {
+    change(collectionId, c -> {
+      c.total++;
+      c.add(queue, due, 1);
+    });
+  }
+
+  /** В коллекцию добавлено count новых карточек (queue = 0) — импорт. */
+  public void newCardsAdded(Integer collectionId, int count) {
+    if (count == 0) return;
+    change(collectionId, c -> {
+      c.total += count;
+      c.newCount += count;
+    });
+  }
+
+  /** Карточка перешла из (oldQueue, oldDue) в (newQueue, newDue). */
+  public void cardChanged(Integer collectionId, int oldQueue, int oldDue, int newQueue, int newDue) {
+    change(collectionId, c -> {
+      c.add(oldQueue, oldDue, -1);
+      c.add(newQueue, newDue, 1);
+    });
+  }
+
+  /** count новых карточек переведены в learning. */
+  public void movedToLearning(Integer collectionId, int count) {
+    if (count == 0) return;
+    change(collectionId, c -> {
+      c.newCount -= count;
+      c.learningCount += count;
+    });
+  }
+
+  /** Состав коллекции изменился целиком или она удалена — пересчитаем при следующем чтении. */
+  public void evict(Integer collectionId) {
+    snapshots.delete(collectionId);
+    afterCommit(() -> {
+      bumpVersion(collectionId);
+      cache.invalidate(collectionId);
+      events.publishEvent(new Changed(collectionId));
+    });
+  }
+
+  /*
+   * Дельта в БД — сразу, строкой в транзакции записи (откатится вместе с ней), к кэшу — после коммита.
+   * Изменение, не затронувшее ни одного счётчика (например, шаг learning), не пишется и не публикуется
+   */
+  private void change(Integer collectionId, Consumer<Counters> delta) {
+    Counters d = new Counters(LocalDate.now());
+    delta.accept(d);
+    if (d.total == 0 && d.newCount == 0 && d.learningCount == 0 && d.reviewCount == 0) return;
+    snapshots.addDelta(collectionId, d.day, d.total, d.newCount, d.learningCount, d.reviewCount);
+    afterCommit(() -> apply(collectionId, delta));
+  }
+
+  /*
+   * Счётчики меняются на месте, а не через compute: для Caffeine это не запись,
+   * и expireAfterWrite отсчитывается от загрузки — страховочная перезагрузка доходит и до активных коллекций
+   */
+  private void apply(Integer collectionId, Consumer<Counters> delta) {
+    bumpVersion(collectionId);
+    Counters c = cache.getIfPresent(collectionId);
+    if (c != null) {
+      if (!c.day.equals(LocalDate.now())) {
+        cache.asMap().remove(collectionId, c);   // вчерашняя запись — выбрасываем
+      } else {
+        synchronized (c) {
+          delta.accept(c);
+        }
+      }
+    }
+    events.publishEvent(new Changed(collectionId));
+  }
+
+  private void bumpVersion(int collectionId) {
+    versions.incrementAndGet(stripe(collectionId));
+  }
+
+  private static int stripe(int collectionId) {
+    return Math.floorMod(collectionId, VERSION_STRIPES);
+  }
+
+  private static void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          action.run();
+        }
+      });
+    } else {
+      action.run();
+    }
+  }
+
+  /*
+   * Дельта, закоммиченная, пока шёл запрос, не попадёт ни в результат (запрос её не видел),
+   * ни в кэш (записи ещё нет) — такие коллекции читаем ещё раз, не больше MAX_LOAD_ATTEMPTS попыток.
+   * Запись в другие коллекции перечитывания не вызывает
+   */
+  private Map<Integer, Counters> load(Set<? extends Integer> collectionIds, LocalDate today) {
+    Map<Integer, Counters> result = new HashMap<>();
+    Set<Integer> pending = Set.copyOf(collectionIds);
+    for (int attempt = 1; ; attempt++) {
+      Map<Integer, Long> seen = new HashMap<>();
+      pending.forEach(id -> seen.put(id, versions.get(stripe(id))));
+      result.putAll(query(pending, today));
+      pending = seen.entrySet().stream()
+              .filter(e -> versions.get(stripe(e.getKey())) != e.getValue())
+              .map(Map.Entry::getKey)
+              .collect(Collectors.toSet());
+      if (pending.isEmpty() || attempt == MAX_LOAD_ATTEMPTS) return result;
+    }
+  }
+
+  private Map<Integer, Counters> query(Set<? extends Integer> collectionIds, LocalDate today) {
+    Map<Integer, Counters> result = new HashMap<>();
+    snapshots.findAll(Set.copyOf(collectionIds), today).forEach((id, s) -> {
+      Counters c = new Counters(today);
+      c.total = s.total();
+      c.newCount = s.newCount();
+      c.learningCount = s.learningCount();
+      c.reviewCount = s.reviewCount();
+      result.put(id, c);
+    });
+    Set<Integer> missing = collectionIds.stream()
+            .filter(id -> !result.containsKey(id))
+            .collect(Collectors.toSet());
+    if (missing.isEmpty()) return result;
+
+    for (Object[] row : cardRepository.countsByCollectionIds(missing, (int) today.toEpochDay())) {
+      Counters c = new Counters(today);
+      c.total = ((Number) row[1]).intValue();
+      c.newCount = ((Number) row[2]).intValue();
+      c.learningCount = ((Number) row[3]).intValue();
+      c.reviewCount = ((Number) row[4]).intValue();
+      result.put(((Number) row[0]).intValue(), c);
+    }
+    return result;
+  }
+
+  /**
+   * Изменяемые счётчики одной коллекции. Дельты и чтение синхронизируются на самом объекте.
+   */
+  private static final class Counters {
+    final LocalDate day;       // на какой день посчитан reviewCount
+    final int todayIndex;      // этот день в единицах review-due (epoch day)
+    int total;
+    int newCount;
+    int learningCount;
+    int reviewCount;
+
+    Counters(LocalDate day) {
+      this.day = day;
+      this.todayIndex = (int) day.toEpochDay();
+    }
+
+    void add(int queue, int due, int sign) {
+      switch (queue) {
+        case 0 -> newCount += sign;
+        case 1, 3 -> learningCount += sign;
+        case 2 -> {
+          if (due <= todayIndex) reviewCount += sign;
+        }
+        default -> { }
+      }
+    }
+
+    synchronized CollectionCounts snapshot(int collectionId) {
+      return new CollectionCounts(collectionId, total, newCount, learningCount, reviewCount);
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package com.myapp.flashcards.service;
+
+import jakarta.transaction.Transactional;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Array;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Снимки счётчиков коллекций на день (таблица collection_due_snapshots) и их дельты
+ * (collection_count_deltas).
+ * <p>
+ * addDelta в транзакции записи добавляет строку с тем же изменением счётчиков, что CollectionCountsCache
+ * применяет в памяти; строку снимка запись не трогает, так что параллельные оценки не ждут друг друга
+ * на её блокировке. Счётчики коллекции — снимок плюс его дельты, одним запросом (findAll).
+ * refresh пересчитывает снимки по cards одним запросом и в нём же удаляет дельты, которые этот пересчёт
+ * уже видел: дельта, закоммиченная позже, остаётся и прибавляется к новому снимку — ни потерь, ни двойного учёта.
+ * <p>
+ * Все методы транзакционные, чтобы JdbcTemplate брал соединение текущего запроса (open-in-view),
+ * а не второе из пула: иначе под нагрузкой каждый запрос счётчиков держит одно соединение и ждёт другое.
+ */
+@Component
+@Transactional
+public class CollectionDueSnapshots {
+
+  /** На сколько дней вперёд считается прогноз review-карточек. */
+  public static final int FORECAST_DAYS = 7;
+
+  /** Снимок одной коллекции. */
+  public record Snapshot(int collectionId, int total, int newCount, int learningCount, int reviewCount,
+                         int[] forecast) {}
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public CollectionDueSnapshots(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Пересчитывает снимки всех коллекций пользователей на день day и удаляет учтённые в них дельты.
+   * Все части запроса видят одно состояние БД, поэтому удаляются ровно те дельты, чьи карточки уже посчитаны.
+   * Снимок не заменяется снимком более раннего дня или расчёта (computed_at).
+   * Прогноз — диапазоном по индексу cards(user_id, queue, due).
+   *
+   * @return сколько коллекций пересчитано
+   */
+  public int refresh(List<Integer> userIds, LocalDate day) {
+    int today = (int) day.toEpochDay();
+    Integer[] users = userIds.toArray(Integer[]::new);
+    return jdbcTemplate.update("""
+            WITH absorbed AS (
+                DELETE FROM collection_count_deltas d
+                USING collections col
+                WHERE d.collection_id = col.id AND col.user_id = ANY (?)),
+            counts AS (
+                SELECT col.id AS collection_id,
+                       COUNT(c.id) AS total,
+                       COUNT(c.id) FILTER (WHERE c.queue = 0) AS new_count,
+                       COUNT(c.id) FILTER (WHERE c.queue IN (1, 3)) AS learning_count,
+                       COUNT(c.id) FILTER (WHERE c.queue = 2 AND c.due <= ?) AS review_count
+                FROM collections col
+                LEFT JOIN cards c ON c.collection_id = col.id
+                WHERE col.user_id = ANY (?)
+                GROUP BY col.id),
+            per_day AS (
+                SELECT c.collection_id, c.due - ? AS day_offset, COUNT(*) AS n
+                FROM cards c
+                WHERE c.user_id = ANY (?) AND c.queue = 2 AND c.due > ? AND c.due <= ?
+                GROUP BY 1, 2)
+            INSERT INTO collection_due_snapshots
+                (collection_id, day, total, new_count, learning_count, review_count, forecast, computed_at)
+            SELECT k.collection_id, ?, k.total, k.new_count, k.learning_count, k.review_count,
+                   ARRAY(SELECT COALESCE(p.n, 0)::int
+                         FROM generate_series(1, ?) g
+                         LEFT JOIN per_day p ON p.collection_id = k.collection_id AND p.day_offset = g
+                         ORDER BY g),
+                   statement_timestamp()
+            FROM counts k
+            ON CONFLICT (collection_id) DO UPDATE
+            SET day            = EXCLUDED.day,
+                total          = EXCLUDED.total,
+                new_count      = EXCLUDED.new_count,
+                learning_count = EXCLUDED.learning_count,
+                review_count   = EXCLUDED.review_count,
+                forecast       = EXCLUDED.forecast,
+                computed_at    = EXCLUDED.computed_at
+            WHERE (collection_due_snapshots.day, collection_due_snapshots.computed_at)
+                      <= (EXCLUDED.day, EXCLUDED.computed_at)
+            """, users, today, users, today, users, today, today + FORECAST_DAYS, Date.valueOf(day), FORECAST_DAYS);
+  }
+
+  /**
+   * Счётчики коллекций на день day: снимок плюс его дельты. Коллекций без снимка на этот день
+   * в результате нет, как и коллекций с дельтой другого дня (запись шла через полночь):
+   * review-счётчик такой дельты посчитан относительно другого дня.
+   */
+  public Map<Integer, Snapshot> findAll(Set<Integer> collectionIds, LocalDate day) {
+    Map<Integer, Snapshot> result = new HashMap<>();
+    jdbcTemplate.query("""
+            SELECT s.collection_id,
+                   s.total + COALESCE(SUM(d.total), 0),
+                   s.new_count + COALESCE(SUM(d.new_count), 0),
+                   s.learning_count + COALESCE(SUM(d.learning_count), 0),
+                   s.review_count + COALESCE(SUM(d.review_count), 0),
+                   s.forecast
+            FROM collection_due_snapshots s
+                     LEFT JOIN collection_count_deltas d ON d.collection_id = s.collection_id
+            WHERE s.collection_id = ANY (?) AND s.day = ?
+            GROUP BY s.collection_id
+            HAVING bool_and(d.day IS NULL OR d.day = s.day)
+            """, rs -> {
+      Snapshot s = new Snapshot(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4), rs.getInt(5), forecast(rs));
+      result.put(s.collectionId(), s);
+    }, collectionIds.toArray(Integer[]::new), Date.valueOf(day));
+    return result;
+  }
+
+  /** Изменение счётчиков коллекции (review — относительно дня day). Вызывать в транзакции записи. */
+  public void addDelta(Integer collectionId, LocalDate day, int total, int newCount, int learningCount,
+                       int reviewCount) {
+    jdbcTemplate.update("""
+            INSERT INTO collection_count_deltas (collection_id, day, total, new_count, learning_count, review_count)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """, collectionId, Date.valueOf(day), total, newCount, learningCount, reviewCount);
+  }
+
+  /** Пользователи с дельтами, ещё не учтёнными в снимках, после afterUserId по возрастанию id. */
+  public List<Integer> findUsersWithDeltas(int afterUserId, int limit) {
+    return jdbcTemplate.queryForList("""
+            SELECT DISTINCT col.user_id
+            FROM collection_count_deltas d
+                     JOIN collections col ON col.id = d.collection_id
+            WHERE col.user_id > ?
+            ORDER BY col.user_id
+            LIMIT ?
+            """, Integer.class, afterUserId, limit);
+  }
+
+  /** Снимок больше не соответствует коллекции — до следующего пересчёта счётчики берутся из cards. */
+  public void delete(Integer collectionId) {
+    jdbcTemplate.update("DELETE FROM collection_due_snapshots WHERE collection_id = ?", collectionId);
+    jdbcTemplate.update("DELETE FROM collection_count_deltas WHERE collection_id = ?", collectionId);
+  }
+
+  private static int[] forecast(ResultSet rs) throws SQLException {
+    Array array = rs.getArray(6);
+    Integer[] values = (Integer[]) array.getArray();
+    return Arrays.stream(values).mapToInt(Integer::intValue).toArray();
+  }
+}
@@ -3,7 +3,9 @@ package com.myapp.flashcards.service;
 import com.myapp.flashcards.dto.CollectionInp;
 import com.myapp.flashcards.mapper.CollectionMapper;
 import com.myapp.flashcards.model.Collection;
+import com.myapp.flashcards.model.SchedulerType;
 import com.myapp.flashcards.repository.CollectionRepository;
+import com.myapp.flashcards.srs.SrsConfig;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -17,23 +19,39 @@ public class CollectionService {
   private final CollectionRepository collectionRepository;
   private final CollectionMapper collectionMapper;
   private final UserService userService;
+  private final CollectionCountsCache countsCache;
 
   public Collection saveCollection(CollectionInp collectionInp) {
+    checkLimit(collectionInp.getNewCardsPerDay());
+    checkLimit(collectionInp.getReviewsPerDay());
     Collection collection = collectionMapper.toEntity(collectionInp);
     if (collection.getId() != null) {
       Collection existingCollection = collectionRepository.findById(collection.getId())
                       .orElseThrow(() -> new RuntimeException("Collection not found"));
-      if (collection.getCards() != null) existingCollection.setCards(collection.getCards());
+      if (collection.getCards() != null) {
+        existingCollection.setCards(collection.getCards());
+        countsCache.evict(existingCollection.getId());
+      }
       if (collection.getName() != null) existingCollection.setName(collection.getName());
+      if (collection.getScheduler() != null) existingCollection.setScheduler(collection.getScheduler());
+      if (collection.getNewCardsPerDay() != null) existingCollection.setNewCardsPerDay(collection.getNewCardsPerDay());
+      if (collection.getReviewsPerDay() != null) existingCollection.setReviewsPerDay(collection.getReviewsPerDay());
       return collectionRepository.save(existingCollection);
     }
     else {
+      if (collection.getScheduler() == null) collection.setScheduler(SchedulerType.SM2);
+      if (collection.getNewCardsPerDay() == null) collection.setNewCardsPerDay(SrsConfig.NEW_CARDS_PER_DAY);
+      if (collection.getReviewsPerDay() == null) collection.setReviewsPerDay(SrsConfig.REVIEWS_PER_DAY);
       if (collection.getUser() != null) collection.setUser(userService.getById(collection.getUser().getId())
               .orElseThrow(() -> new RuntimeException("User not found")));
       return collectionRepository.save(collection);
     }
   }
 
+  private static void checkLimit(Integer perDay) {
+    if (perDay != null && perDay < 0) throw new IllegalArgumentException("Daily limit must not be negative");
+  }
+
   public Set<Collection> getCollectionsByUserId(Integer userId) {
     return collectionRepository.findAllByUserId(userId);
   }
@@ -44,6 +62,7 @@ public class CollectionService {
 
   public Boolean deleteCollectionById(Integer collectionId) {
     collectionRepository.deleteById(collectionId);
+    countsCache.evict(collectionId);
     return !collectionRepository.existsById(collectionId);
   }
 
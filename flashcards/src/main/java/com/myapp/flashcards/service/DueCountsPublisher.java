@@ -0,0 +1,140 @@
+package com.myapp.flashcards.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.myapp.flashcards.dto.CollectionCounts;
+import com.myapp.flashcards.model.Collection;
+import com.myapp.flashcards.repository.CollectionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Рассылка изменившихся счётчиков коллекций подписчикам dueCountsChanged.
+ * <p>
+ * На пользователя — один общий sink, сколько бы у него ни было подключений;
+ * с отключением последнего подписчика sink удаляется.
+ * Событие {@link CollectionCountsCache.Changed} приходит после коммита записи, в потоке записи;
+ * рассылка уходит в отдельный поток, так что запрос записи её не ждёт. Пока рассылка по коллекции
+ * стоит в очереди, новые события той же коллекции к ней не добавляются — она и так прочитает свежие счётчики.
+ * Счётчики берутся из CollectionCountsCache (обычно без SQL) один раз и раздаются всем подключениям.
+ * Если у владельца коллекции нет подписчиков, событие отбрасывается — простаивающие клиенты запросов не стоят.
+ * <p>
+ * reviewCount зависит от дня, поэтому в начале каждых суток подписчик получает счётчики всех своих коллекций заново.
+ * learningCount считает все learning-карточки независимо от due, наступление due его не меняет.
+ */
+@Slf4j
+@Component
+public class DueCountsPublisher {
+
+  /* sink пользователя и число его подписчиков; меняется только внутри sinks.compute */
+  private static final class UserSink {
+    final Sinks.Many<CollectionCounts> sink = Sinks.many().multicast().directBestEffort();
+    int subscribers;
+  }
+
+  private final CardService cardService;
+  private final CollectionRepository collectionRepository;
+
+  private final Map<Integer, UserSink> sinks = new ConcurrentHashMap<>();
+  /* коллекции, рассылка по которым поставлена в очередь и ещё не началась */
+  private final Set<Integer> pending = ConcurrentHashMap.newKeySet();
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+    Thread t = new Thread(r, "due-counts-publisher");
+    t.setDaemon(true);
+    return t;
+  });
+  /* коллекция → владелец; чтобы не искать владельца на каждом событии */
+  private final Cache<Integer, Integer> owners = Caffeine.newBuilder()
+          .maximumSize(10_000)
+          .build();
+
+  public DueCountsPublisher(CardService cardService, CollectionRepository collectionRepository) {
+    this.cardService = cardService;
+    this.collectionRepository = collectionRepository;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Счётчики всех коллекций пользователя, затем — каждое их изменение.
+   */
+  public Flux<CollectionCounts> subscribe(Integer userId) {
+    return Flux.defer(() -> {
+      UserSink userSink = sinks.compute(userId, (id, current) -> {
+        UserSink s = current != null ? current : new UserSink();
+        s.subscribers++;
+        return s;
+      });
+      // на изменения подписываемся раньше, чем читаем текущие значения, — ничего не теряется
+      return Flux.merge(
+                      userSink.sink.asFlux().onBackpressureLatest(),
+                      Flux.defer(() -> Flux.fromIterable(snapshot(userId))),
+                      nextDays().publishOn(Schedulers.boundedElastic())
+                              .concatMapIterable(day -> snapshot(userId)))
+              .doFinally(signal -> sinks.computeIfPresent(userId,
+                      (id, s) -> s == userSink && --s.subscribers == 0 ? null : s));
+    });
+  }
+
+  @EventListener
+  public void onCountsChanged(CollectionCountsCache.Changed event) {
+    if (sinks.isEmpty()) return;
+    Integer collectionId = event.collectionId();
+    if (!pending.add(collectionId)) return;
+    executor.execute(() -> {
+      pending.remove(collectionId);
+      try {
+        publish(collectionId);
+      } catch (RuntimeException e) {
+        log.warn("Due counts publishing failed: collection={}", collectionId, e);
+      }
+    });
+  }
+
+  private void publish(Integer collectionId) {
+    Integer userId = owners.get(collectionId, id -> collectionRepository.findById(id)
+            .map(c -> c.getUser().getId())
+            .orElse(null));
+    if (userId == null) return;
+
+    UserSink userSink = sinks.get(userId);
+    if (userSink == null) return;
+    CollectionCounts counts = cardService.countsByCollectionIds(Set.of(collectionId)).get(collectionId);
+    // рассылка идёт в одном потоке, одновременных emit в sink не бывает
+    userSink.sink.tryEmitNext(counts);
+  }
+
+  private Iterable<CollectionCounts> snapshot(Integer userId) {
+    Set<Integer> ids = collectionRepository.findAllByUserId(userId).stream()
+            .map(Collection::getId)
+            .collect(Collectors.toSet());
+    ids.forEach(id -> owners.put(id, userId));
+    return ids.isEmpty() ? Set.of() : cardService.countsByCollectionIds(ids).values();
+  }
+
+  /* Сигнал в начале каждых следующих суток */
+  private static Flux<Long> nextDays() {
+    return Mono.defer(() -> Mono.delay(Duration.between(LocalDateTime.now(),
+                    LocalDate.now().plusDays(1).atStartOfDay())))
+            .repeat();
+  }
+}
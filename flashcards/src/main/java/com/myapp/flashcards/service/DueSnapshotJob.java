@@ -0,0 +1,106 @@
+package com.myapp.flashcards.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Пересчёт снимков счётчиков коллекций по cards.
+ * <p>
+ * При смене дня пересчитываются снимки всех пользователей, чтобы утренние запросы счётчиков
+ * читали готовую строку, а не считали GROUP BY по картам все одновременно. Раз в
+ * due-snapshot.recompute-interval пересчитываются снимки пользователей с накопившимися дельтами:
+ * cards остаются источником истины, а таблица дельт не растёт.
+ * <p>
+ * Пользователи обрабатываются пачками по due-snapshot.chunk-size с продолжением по id (keyset):
+ * каждая пачка — отдельный короткий запрос в своей транзакции, без долгих блокировок.
+ * Пересчёт идёт на одном экземпляре приложения: на время прохода берётся advisory-блокировка
+ * PostgreSQL на отдельном соединении; экземпляр, не получивший её, проход пропускает.
+ */
+@Slf4j
+@Component
+public class DueSnapshotJob {
+
+  /* Ключ advisory-блокировки пересчёта снимков — общий для всех экземпляров */
+  private static final long LOCK_KEY = 0x64756573_6e617073L;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final CollectionDueSnapshots snapshots;
+  private final int chunkSize;
+
+  public DueSnapshotJob(JdbcTemplate jdbcTemplate,
+                        CollectionDueSnapshots snapshots,
+                        @Value("${due-snapshot.chunk-size:500}") int chunkSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.snapshots = snapshots;
+    this.chunkSize = chunkSize;
+  }
+
+  /* Сутки у всех пользователей сменяются по часовому поясу сервера — как и в планировщике */
+  @Scheduled(cron = "${due-snapshot.cron:0 0 0 * * *}")
+  public void run() {
+    refreshLocked("all users", afterId -> jdbcTemplate.queryForList(
+            "SELECT id FROM users WHERE id > ? ORDER BY id LIMIT ?", Integer.class, afterId, chunkSize));
+  }
+
+  @Scheduled(fixedDelayString = "${due-snapshot.recompute-interval:PT1H}",
+          initialDelayString = "${due-snapshot.recompute-interval:PT1H}")
+  public void recompute() {
+    refreshLocked("users with deltas", afterId -> snapshots.findUsersWithDeltas(afterId, chunkSize));
+  }
+
+  /*
+   * Блокировка сессионная: соединение с ней держится до конца прохода,
+   * сами пачки идут в своих транзакциях на других соединениях пула
+   */
+  private void refreshLocked(String scope, IntFunction<List<Integer>> nextUsers) {
+    jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+      if (!lock(con, "SELECT pg_try_advisory_lock(?)")) {
+        log.info("Due snapshots ({}) skipped: another instance is refreshing", scope);
+        return null;
+      }
+      try {
+        refresh(scope, nextUsers);
+      } finally {
+        lock(con, "SELECT pg_advisory_unlock(?)");
+      }
+      return null;
+    });
+  }
+
+  private void refresh(String scope, IntFunction<List<Integer>> nextUsers) {
+    LocalDate today = LocalDate.now();
+    long started = System.currentTimeMillis();
+    int users = 0;
+    int collections = 0;
+    int lastId = 0;
+    List<Integer> chunk;
+    while (!(chunk = nextUsers.apply(lastId)).isEmpty()) {
+      collections += snapshots.refresh(chunk, today);
+      users += chunk.size();
+      lastId = chunk.get(chunk.size() - 1);
+    }
+    log.info("Due snapshots ({}) for {}: {} users, {} collections in {} ms",
+            scope, today, users, collections, System.currentTimeMillis() - started);
+  }
+
+  private static boolean lock(Connection con, String sql) throws SQLException {
+    try (PreparedStatement ps = con.prepareStatement(sql)) {
+      ps.setLong(1, LOCK_KEY);
+      try (ResultSet rs = ps.executeQuery()) {
+        return rs.next() && rs.getBoolean(1);
+      }
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package com.myapp.flashcards.service;
+
+import com.myapp.flashcards.dedup.DuplicateIndex;
+import com.myapp.flashcards.dto.DuplicateCandidate;
+import com.myapp.flashcards.model.Collection;
+import com.myapp.flashcards.repository.CardDuplicateRepository;
+import com.myapp.flashcards.repository.CollectionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DuplicateService {
+
+  private static final int INDEX_BATCH_SIZE = 1000;
+
+  private final CardDuplicateRepository duplicateRepository;
+  private final CollectionRepository collectionRepository;
+  private final DuplicateIndex duplicateIndex;
+
+  /*
+   * Фоновая индексация после импорта — в одном потоке, чтобы одну карточку не индексировали дважды
+   * одновременно; транзакции импорта не ждут поиска дубликатов
+   */
+  private final ExecutorService indexExecutor = Executors.newSingleThreadExecutor(r -> {
+    Thread t = new Thread(r, "duplicate-index");
+    t.setDaemon(true);
+    return t;
+  });
+
+  @PreDestroy
+  void shutdown() {
+    indexExecutor.shutdownNow();
+  }
+
+  /**
+   * Найденные пары дубликатов, где хотя бы одна карточка из коллекции;
+   * пара разворачивается так, чтобы card была из этой коллекции.
+   */
+  public List<DuplicateCandidate> getCandidates(Integer collectionId) {
+    return duplicateRepository.findByCollectionId(collectionId).stream()
+            .map(d -> d.getCard().getCollection().getId().equals(collectionId)
+                    ? new DuplicateCandidate(d.getCard(), d.getDuplicate(), d.getSimilarity(), d.getExact())
+                    : new DuplicateCandidate(d.getDuplicate(), d.getCard(), d.getSimilarity(), d.getExact()))
+            .toList();
+  }
+
+  /**
+   * Добавляет в индекс карточки коллекции, сохранённые до его появления.
+   */
+  public int indexCollection(Integer collectionId) {
+    Collection collection = collectionRepository.findById(collectionId)
+            .orElseThrow(() -> new RuntimeException("Collection not found"));
+    return duplicateIndex.indexCollection(collection.getUser().getId(), collectionId, INDEX_BATCH_SIZE);
+  }
+
+  /**
+   * Ставит в очередь индексацию карточек коллекции с id от fromId до toId (вставленных импортом).
+   * Вызывать после коммита вставки; уже проиндексированные карточки пропускаются.
+   */
+  public void indexCollectionLater(Integer userId, Integer collectionId, int fromId, int toId) {
+    indexExecutor.execute(() -> {
+      try {
+        duplicateIndex.indexCollection(userId, collectionId, fromId, toId, INDEX_BATCH_SIZE);
+      } catch (RuntimeException e) {
+        log.warn("Duplicate indexing failed: collection={}, ids={}..{}", collectionId, fromId, toId, e);
+      }
+    });
+  }
+}
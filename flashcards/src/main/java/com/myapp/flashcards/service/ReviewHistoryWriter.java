@@ -0,0 +1,149 @@
+package com.myapp.flashcards.service;
+
+import com.myapp.flashcards.model.CardReviewHistory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Асинхронная запись журнала повторений.
+ * Оценка карточки только кладёт запись в ограниченную очередь,
+ * фоновый поток выгребает её и пишет в repetitions пачками JDBC.
+ * Если очередь переполнена, запись выполняет сам вызывающий поток
+ * (backpressure) — строки никогда не теряются молча.
+ */
+@Slf4j
+@Component
+public class ReviewHistoryWriter {
+
+  private static final String INSERT_SQL = """
+          INSERT INTO repetitions
+              (card_id, queue, answer, prev_ivl, new_ivl, factor, due, reviewed_at, time_taken)
+          VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+          """;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final BlockingQueue<CardReviewHistory> queue;
+  private final int batchSize;
+  private final long offerTimeoutMs;
+  private final Thread worker;
+  private volatile boolean running = true;
+  /*
+   * append кладёт в очередь под read lock, shutdown снимает running под write lock:
+   * после этого ни одна запись не попадёт в очередь мимо финального дренажа
+   */
+  private final ReadWriteLock lifecycle = new ReentrantReadWriteLock();
+
+  public ReviewHistoryWriter(JdbcTemplate jdbcTemplate,
+                             @Value("${review-history.queue-capacity:10000}") int queueCapacity,
+                             @Value("${review-history.batch-size:500}") int batchSize,
+                             @Value("${review-history.offer-timeout-ms:50}") long offerTimeoutMs) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.batchSize = batchSize;
+    this.offerTimeoutMs = offerTimeoutMs;
+    this.worker = new Thread(this::drainLoop, "review-history-writer");
+    this.worker.setDaemon(true);
+  }
+
+  @PostConstruct
+  void start() {
+    worker.start();
+  }
+
+  /**
+   * Добавляет запись в журнал. Не ждёт INSERT, пока в очереди есть место;
+   * при переполнении ждёт offerTimeoutMs, после чего пишет строку синхронно.
+   */
+  public void append(CardReviewHistory entry) {
+    lifecycle.readLock().lock();
+    try {
+      if (running && queue.offer(entry, offerTimeoutMs, TimeUnit.MILLISECONDS)) return;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      lifecycle.readLock().unlock();
+    }
+    insert(List.of(entry));
+  }
+
+  private void drainLoop() {
+    List<CardReviewHistory> batch = new ArrayList<>(batchSize);
+    while (running) {
+      try {
+        CardReviewHistory first = queue.poll(200, TimeUnit.MILLISECONDS);
+        if (first == null) continue;
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+        insert(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        log.error("Review history writer failed", e);
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * При остановке приложения дописываем всё, что осталось в очереди;
+   * записи, пришедшие позже, append пишет синхронно.
+   */
+  @PreDestroy
+  void shutdown() throws InterruptedException {
+    lifecycle.writeLock().lock();
+    try {
+      running = false;
+    } finally {
+      lifecycle.writeLock().unlock();
+    }
+    worker.join(TimeUnit.SECONDS.toMillis(10));
+
+    List<CardReviewHistory> rest = new ArrayList<>(batchSize);
+    while (queue.drainTo(rest, batchSize) > 0) {
+      insert(rest);
+      rest.clear();
+    }
+  }
+
+  private void insert(List<CardReviewHistory> batch) {
+    try {
+      jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, e) -> {
+        ps.setInt(1, e.getCardId());
+        ps.setInt(2, e.getQueue());
+        ps.setString(3, e.getAnswer().name());
+        ps.setInt(4, e.getPrevIvl());
+        ps.setInt(5, e.getNewIvl());
+        ps.setInt(6, e.getFactor());
+        ps.setInt(7, e.getDue());
+        ps.setTimestamp(8, Timestamp.valueOf(e.getReviewedAt()));
+        if (e.getTimeTaken() != null) ps.setInt(9, e.getTimeTaken());
+        else ps.setNull(9, Types.INTEGER);
+      });
+    } catch (RuntimeException ex) {
+      if (batch.size() == 1) {
+        CardReviewHistory e = batch.get(0);
+        log.error("Failed to write review history: card={}, answer={}, reviewedAt={}",
+                e.getCardId(), e.getAnswer(), e.getReviewedAt(), ex);
+        return;
+      }
+      // одна «плохая» строка (например, карточку уже удалили) не должна терять всю пачку
+      batch.forEach(e -> insert(List.of(e)));
+    }
+  }
+}
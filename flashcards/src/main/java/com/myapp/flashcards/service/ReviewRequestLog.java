@@ -0,0 +1,103 @@
+package com.myapp.flashcards.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Ключи идемпотентности reviewCard и clientId оценок submitReviews (таблица review_requests).
+ * <p>
+ * Ключ регистрируется в транзакции оценки: пока она не завершена, повтор с тем же ключом
+ * ждёт на уникальном индексе, после коммита — видит ключ и оценку не повторяет,
+ * после отката — регистрирует ключ и оценивает сам. Ключи старше ttl удаляются раз в час.
+ */
+@Component
+public class ReviewRequestLog {
+
+  public static final int MAX_KEY_LENGTH = 64;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final Duration ttl;
+
+  public ReviewRequestLog(JdbcTemplate jdbcTemplate,
+                          @Value("${review-idempotency.ttl:P1D}") Duration ttl) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.ttl = ttl;
+  }
+
+  /**
+   * Регистрирует ключ для карточки. Вызывать внутри транзакции оценки.
+   *
+   * @return false — запрос с этим ключом уже выполнен (или карточки нет), оценивать карточку не нужно
+   */
+  public boolean register(String idempotencyKey, Integer cardId) {
+    checkKey(idempotencyKey);
+    int inserted = jdbcTemplate.update("""
+            INSERT INTO review_requests (idempotency_key, card_id)
+            SELECT ?, id FROM cards WHERE id = ?
+            ON CONFLICT (idempotency_key) DO NOTHING
+            """, idempotencyKey, cardId);
+    if (inserted == 1) return true;
+
+    List<Integer> owner = jdbcTemplate.queryForList(
+            "SELECT card_id FROM review_requests WHERE idempotency_key = ?", Integer.class, idempotencyKey);
+    if (!owner.isEmpty() && !owner.get(0).equals(cardId)) {
+      throw new IllegalArgumentException("idempotencyKey already used for another card");
+    }
+    return false;
+  }
+
+  /**
+   * То же для пачки: keys[i] — ключ оценки карточки cardIds[i], ключи без повторов.
+   * Для несуществующих карточек ключи не регистрируются.
+   *
+   * @return ключи, зарегистрированные сейчас; остальные уже были использованы
+   */
+  public Set<String> registerAll(List<String> keys, List<Integer> cardIds) {
+    keys.forEach(ReviewRequestLog::checkKey);
+    String[] keyArray = keys.toArray(String[]::new);
+    Integer[] cardArray = cardIds.toArray(Integer[]::new);
+    Set<String> registered = new HashSet<>(jdbcTemplate.queryForList("""
+            INSERT INTO review_requests (idempotency_key, card_id)
+            SELECT r.key, r.card_id
+            FROM unnest(?::varchar[], ?::int[]) AS r(key, card_id)
+            WHERE EXISTS (SELECT 1 FROM cards c WHERE c.id = r.card_id)
+            ON CONFLICT (idempotency_key) DO NOTHING
+            RETURNING idempotency_key
+            """, String.class, keyArray, cardArray));
+    if (registered.size() == keys.size()) return registered;
+
+    // как в register: уже использованный ключ должен относиться к той же карточке
+    List<String> foreign = jdbcTemplate.queryForList("""
+            SELECT q.idempotency_key
+            FROM unnest(?::varchar[], ?::int[]) AS r(key, card_id)
+                     JOIN review_requests q ON q.idempotency_key = r.key
+            WHERE q.card_id <> r.card_id
+            LIMIT 1
+            """, String.class, keyArray, cardArray);
+    if (!foreign.isEmpty()) {
+      throw new IllegalArgumentException("idempotencyKey already used for another card: " + foreign.get(0));
+    }
+    return registered;
+  }
+
+  private static void checkKey(String key) {
+    if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+      throw new IllegalArgumentException("idempotencyKey must be 1.." + MAX_KEY_LENGTH + " characters");
+    }
+  }
+
+  @Scheduled(fixedDelayString = "PT1H", initialDelayString = "PT1M")
+  void purgeExpired() {
+    jdbcTemplate.update("DELETE FROM review_requests WHERE created_at < ?",
+            Timestamp.valueOf(LocalDateTime.now().minus(ttl)));
+  }
+}
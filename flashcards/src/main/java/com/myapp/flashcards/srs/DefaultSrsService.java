@@ -2,34 +2,47 @@ package com.myapp.flashcards.srs;
 
 import com.myapp.flashcards.dto.NextIntervalDto;
 import com.myapp.flashcards.model.Card;
-import com.myapp.flashcards.model.Collection;
 import com.myapp.flashcards.model.IntervalUnit;
 import com.myapp.flashcards.model.ReviewAnswer;
 import com.myapp.flashcards.repository.CardRepository;
-import com.myapp.flashcards.repository.CollectionRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Sort;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
-import java.util.EnumMap;
+import java.time.ZoneId;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 import static com.myapp.flashcards.model.IntervalUnit.DAY;
 import static com.myapp.flashcards.model.IntervalUnit.MIN;
 import static com.myapp.flashcards.model.ReviewAnswer.*;
 
+/**
+ * Планировщик SM-2 (как в Anki). Основная реализация SrsService: отбор due-карточек
+ * и перевод новых в learning не зависят от планировщика коллекции и идут через неё.
+ */
 @Service
+@Primary
 @RequiredArgsConstructor
 public class DefaultSrsService implements SrsService {
 
+  /* Общие неизменяемые превью для learning-фазы: «<1 мин», «<6 мин» / «<10 мин», «1 дн», «2 дн» */
+  private static final List<NextIntervalDto> FIRST_STEP_PREVIEW = List.of(
+          new NextIntervalDto(AGAIN, 0, MIN),
+          new NextIntervalDto(HARD, 6, MIN),
+          new NextIntervalDto(GOOD, 10, MIN),
+          new NextIntervalDto(EASY, 2, DAY));
+  private static final List<NextIntervalDto> LAST_STEP_PREVIEW = List.of(
+          new NextIntervalDto(AGAIN, 0, MIN),
+          new NextIntervalDto(HARD, 10, MIN),
+          new NextIntervalDto(GOOD, 1, DAY),
+          new NextIntervalDto(EASY, 2, DAY));
+  private static final NextIntervalDto REVIEW_AGAIN_PREVIEW = new NextIntervalDto(AGAIN, 10, MIN);
+
   private final CardRepository cardRepository;
-  private final CollectionRepository collectionRepository;
 
   @Override
   public void initializeLearning(Card card) {
@@ -42,17 +55,42 @@ public class DefaultSrsService implements SrsService {
             SrsConfig.LEARNING_STEPS_MIN[0] * 60));
   }
 
+  @Override
+  @Transactional
+  public void initializeLearning(List<Card> cards) {
+    List<Card> newCards = cards.stream()
+            .filter(c -> c.getQueue() == 0)
+            .toList();
+    if (newCards.isEmpty()) return;
+
+    // Один due на всю пачку: первый learning-шаг от текущего момента
+    int stepsLeft = SrsConfig.LEARNING_STEPS_MIN.length;
+    int due = (int) (Instant.now().getEpochSecond() +
+            SrsConfig.LEARNING_STEPS_MIN[0] * 60);
+
+    cardRepository.startLearning(newCards.stream().map(Card::getId).toList(), stepsLeft, due);
+
+    // Отражаем то же состояние в уже загруженных объектах
+    for (Card card : newCards) {
+      card.setType(1);
+      card.setQueue(1);
+      card.setStepsLeft(stepsLeft);
+      card.setDue(due);
+      card.setVersion(card.getVersion() + 1);
+    }
+  }
+
 
   @Override
   @Transactional
-  public void processReview(Card card, ReviewAnswer quality) {
+  public void processReview(Card card, ReviewAnswer quality, Instant reviewedAt) {
 
     /* -------------------------------------------------
        0. Общие данные
        ------------------------------------------------- */
-    long nowSec = Instant.now().getEpochSecond();
-    LocalDate createdDate = card.getCreatedAt().toLocalDate();
-    int daysFromCreation = (int) ChronoUnit.DAYS.between(createdDate, LocalDate.now());
+    long nowSec = reviewedAt.getEpochSecond();
+    LocalDate today = LocalDate.ofInstant(reviewedAt, ZoneId.systemDefault());
+    int todayDay = (int) today.toEpochDay();
 
     /* -------------------------------------------------
        1. Learning / Relearning
@@ -102,7 +140,7 @@ public class DefaultSrsService implements SrsService {
 
             card.setIvl(gradIvl);
             card.setReps(card.getReps() + 1);
-            card.setDue(daysFromCreation + gradIvl);
+            card.setDue(todayDay + gradIvl);
           }
         }
       }
@@ -126,7 +164,7 @@ public class DefaultSrsService implements SrsService {
 
       /* 3.2 Корректный ответ → новый интервал */
       int prevIvl = card.getIvl();
-      int delay = calculateDelay(card);
+      int delay = calculateDelay(card, today);
       int newIvl = calculateNextInterval(prevIvl, quality, delay, card.getFactor());
       newIvl = constrainInterval(newIvl);
 
@@ -146,52 +184,30 @@ public class DefaultSrsService implements SrsService {
       }
 
       //‑‑‑ планируем следующий показ
-      card.setDue(daysFromCreation + newIvl);
+      card.setDue(todayDay + newIvl);
     }
   }
 
   /**
-   * Возвращает все карточки из заданной коллекции, которым пора быть показанными.
+   * Возвращает карточки из заданной коллекции, которым пора быть показанными.
    */
   @Override
-  public List<Card> getDueCards(Integer collectionId, LocalDate today) {
-    // 1. Находим коллекцию, чтобы взять её дату создания
-    Collection coll = collectionRepository.findById(collectionId)
-            .orElseThrow(() -> new RuntimeException("Collection not found"));
-    LocalDate colCreatedDate = coll.getCreatedAt().toLocalDate();
-
-    long nowSec = Instant.now().getEpochSecond();
-    int daysSinceCreation = (int) ChronoUnit.DAYS.between(colCreatedDate, today);
-
-    // 2. Берём все карты этой коллекции
-    return cardRepository.findAllByCollectionId(collectionId, Sort.by("id")).stream()
-            .filter(c -> {
-              switch (c.getQueue()) {
-                case 0: // new
-                  return true;
-                case 1: // learning
-                case 3: // relearn
-                  // due — это UNIX-метка для intraday
-                  return true;
-                case 2: // review
-                  // due — это день от создания коллекции
-                  return c.getDue() <= daysSinceCreation;
-                default:
-                  return false;
-              }
-            })
-            .collect(Collectors.toList());
+  public List<Card> getDueCards(Integer collectionId, LocalDate today, int limit) {
+    // learning/relearn: due — UNIX-метка, review: due — день (epoch day)
+    int nowSec = (int) (Instant.now().getEpochSecond() + SrsConfig.LEARN_AHEAD_SEC);
+
+    // Отбор по индексу (collection_id, queue, due) прямо в БД
+    return cardRepository.findDueCards(collectionId, (int) today.toEpochDay(), nowSec,
+            PageRequest.of(0, limit));
   }
 
   // --- вспомогательные методы ---
 
   /**
-   * Сколько дней просрочено: текущий день – день, сохранённый в due.
+   * Сколько дней просрочено: день ответа – день, сохранённый в due.
    */
-  private int calculateDelay(Card card) {
-    LocalDate created = card.getCreatedAt().toLocalDate();
-    int daysElapsed = (int) ChronoUnit.DAYS.between(created, LocalDate.now());
-    return daysElapsed - card.getDue();
+  private int calculateDelay(Card card, LocalDate today) {
+    return (int) today.toEpochDay() - card.getDue();
   }
 
   /**
@@ -220,7 +236,7 @@ public class DefaultSrsService implements SrsService {
   /**
    * Приводим интервал к диапазону [MIN_INTERVAL; MAX_INTERVAL]
    */
-  private int constrainInterval(int interval) {
+  static int constrainInterval(int interval) {
     if (interval < SrsConfig.MIN_INTERVAL) {
       return SrsConfig.MIN_INTERVAL;
     }
@@ -233,50 +249,27 @@ public class DefaultSrsService implements SrsService {
   /**
    * Предварительно рассчитывает интервалы для всех вариантов ответа.
    */
-  public Map<ReviewAnswer, NextIntervalDto> previewIntervals(Card card) {
-
-    Map<ReviewAnswer, NextIntervalDto> m = new EnumMap<>(ReviewAnswer.class);
+  @Override
+  public List<NextIntervalDto> previewIntervals(Card card) {
 
-    /* -------- Learning / Relearning -------- */
+    /* -------- Learning / Relearning: интервалы постоянные -------- */
     if (card.getQueue() == 1 || card.getQueue() == 3 || card.getQueue() == 0) {
-
-      int left = card.getStepsLeft();                 // 2 или 1
-      // «<1 мин» для Again всегда одинаково
-      m.put(AGAIN, new NextIntervalDto(AGAIN, 0, MIN));
-
-      if (left == 2) {          // первый learning‑шаг
-        m.put(HARD, new NextIntervalDto(HARD, 6, MIN)); // «<6 мин»
-        m.put(GOOD, new NextIntervalDto(GOOD, 10, MIN)); // «<10 мин»
-      } else {                  // left == 1 — последний learning‑шаг
-        m.put(HARD, new NextIntervalDto(HARD, 10, MIN)); // «<10 мин»
-        m.put(GOOD, new NextIntervalDto(GOOD, 1, DAY)); // «1 дн»
-      }
-      m.put(EASY, new NextIntervalDto(EASY, 2, DAY));      // «2 дн»
-      return m;
+      // left == 2 — первый learning‑шаг, left == 1 — последний
+      return card.getStepsLeft() == 2 ? FIRST_STEP_PREVIEW : LAST_STEP_PREVIEW;
     }
 
     /* -------- Review -------- */
     int prevIvl = card.getIvl();
-    int delay = calculateDelay(card);
+    int delay = calculateDelay(card, LocalDate.now());
     int ef = card.getFactor();
-    m.put(AGAIN, new NextIntervalDto(AGAIN, 10, MIN));
-
-    m.put(HARD, new NextIntervalDto(HARD,
-            constrainInterval((int) (prevIvl * SrsConfig.HARD_FACTOR)), DAY));
-
-    m.put(GOOD, new NextIntervalDto(GOOD,
-            constrainInterval((int) ((prevIvl + delay / 2.0) * ef / 1000.0)), DAY));
-
-    m.put(EASY, new NextIntervalDto(EASY,
-            constrainInterval((int) ((prevIvl + delay) * ef / 1000.0 * SrsConfig.EASY_BONUS)), DAY));
 
-    return m;
-  }
-
-  /**
-   * Заполняет поле newIntervals у каждой карточки.
-   */
-  public void attachPreviewIntervals(List<Card> cards) {
-    cards.forEach(c -> c.setNewIntervals(previewIntervals(c)));
+    return List.of(
+            REVIEW_AGAIN_PREVIEW,
+            new NextIntervalDto(HARD,
+                    constrainInterval((int) (prevIvl * SrsConfig.HARD_FACTOR)), DAY),
+            new NextIntervalDto(GOOD,
+                    constrainInterval((int) ((prevIvl + delay / 2.0) * ef / 1000.0)), DAY),
+            new NextIntervalDto(EASY,
+                    constrainInterval((int) ((prevIvl + delay) * ef / 1000.0 * SrsConfig.EASY_BONUS)), DAY));
   }
 }
@@ -0,0 +1,105 @@
+package com.myapp.flashcards.srs;
+
+import com.myapp.flashcards.model.ReviewAnswer;
+
+/**
+ * Формулы FSRS-5 (stability / difficulty / retrievability) для заданного набора весов.
+ * Без состояния и без Spring — используется и планировщиком, и оптимизатором.
+ */
+public final class FsrsModel {
+
+  public static final double DECAY = -0.5;
+  public static final double FACTOR = 19.0 / 81.0;    // R(S, S) = 0.9
+  public static final double DESIRED_RETENTION = 0.9;
+
+  /** Веса FSRS-5 по умолчанию (до оптимизации под пользователя). */
+  public static final double[] DEFAULT_WEIGHTS = {
+          0.40255, 1.18385, 3.173, 15.69105, 7.1949, 0.5345, 1.4604, 0.0046, 1.54575, 0.1192,
+          1.01925, 1.9395, 0.11, 0.29605, 2.2698, 0.2315, 2.9898, 0.51655, 0.6621
+  };
+
+  /** Допустимые границы каждого веса — оптимизатор не выходит за них. */
+  static final double[] MIN_WEIGHTS = {
+          0.001, 0.001, 0.001, 0.001, 1.0, 0.001, 0.001, 0.001, 0.0, 0.0,
+          0.001, 0.001, 0.001, 0.001, 0.0, 0.0, 1.0, 0.0, 0.0
+  };
+  static final double[] MAX_WEIGHTS = {
+          100, 100, 100, 100, 10, 4, 4, 0.75, 4.5, 0.8,
+          3.5, 5, 0.25, 0.9, 4, 1, 6, 2, 2
+  };
+
+  private static final double MIN_STABILITY = 0.01;
+
+  private final double[] w;
+  // зависят только от весов — считаем один раз, а не на каждом шаге оптимизатора
+  private final double expW8;
+  private final double easyInitialDifficulty;
+
+  public FsrsModel(double[] weights) {
+    this.w = weights;
+    this.expW8 = Math.exp(w[8]);
+    this.easyInitialDifficulty = initialDifficulty(4);
+  }
+
+  /** Оценка 1..4 (Again..Easy). */
+  public static int grade(ReviewAnswer answer) {
+    return answer.ordinal() + 1;
+  }
+
+  /** Вероятность вспомнить через t дней при стабильности s. */
+  public static double retrievability(double elapsedDays, double stability) {
+    // (1 + F·t/S)^DECAY при DECAY = -0.5; sqrt заметно дешевле pow в цикле оптимизатора
+    return 1 / Math.sqrt(1 + FACTOR * elapsedDays / stability);
+  }
+
+  /** Интервал в днях, через который R опустится до desiredRetention. */
+  public static double interval(double stability, double desiredRetention) {
+    return stability / FACTOR * (Math.pow(desiredRetention, 1 / DECAY) - 1);
+  }
+
+  public double initialStability(int grade) {
+    return Math.max(w[grade - 1], MIN_STABILITY);
+  }
+
+  public double initialDifficulty(int grade) {
+    return clampDifficulty(w[4] - Math.exp(w[5] * (grade - 1)) + 1);
+  }
+
+  public double nextDifficulty(double d, int grade) {
+    double delta = -w[6] * (grade - 3);
+    double damped = d + delta * (10 - d) / 9;                       // linear damping
+    return clampDifficulty(w[7] * easyInitialDifficulty + (1 - w[7]) * damped);   // mean reversion
+  }
+
+  /** Стабильность после успешного ответа (Hard/Good/Easy) на review. */
+  public double recallStability(double d, double s, double r, int grade) {
+    double hardPenalty = grade == 2 ? w[15] : 1;
+    double easyBonus = grade == 4 ? w[16] : 1;
+    return Math.max(MIN_STABILITY, s * (expW8 * (11 - d) * Math.pow(s, -w[9])
+            * (Math.exp(w[10] * (1 - r)) - 1) * hardPenalty * easyBonus + 1));
+  }
+
+  /** Стабильность после забывания (Again) на review. */
+  public double forgetStability(double d, double s, double r) {
+    double sf = w[11] * Math.pow(d, -w[12]) * (Math.pow(s + 1, w[13]) - 1) * Math.exp(w[14] * (1 - r));
+    return Math.max(MIN_STABILITY, Math.min(sf, s));
+  }
+
+  /** Стабильность после ответа в тот же день (learning / relearning шаги). */
+  public double shortTermStability(double s, int grade) {
+    return Math.max(MIN_STABILITY, s * Math.exp(w[17] * (grade - 3 + w[18])));
+  }
+
+  /**
+   * Стабильность после ответа с учётом того, сколько дней прошло с прошлого повторения.
+   */
+  public double nextStability(double d, double s, double elapsedDays, int grade) {
+    if (elapsedDays < 1) return shortTermStability(s, grade);
+    double r = retrievability(elapsedDays, s);
+    return grade == 1 ? forgetStability(d, s, r) : recallStability(d, s, r, grade);
+  }
+
+  private static double clampDifficulty(double d) {
+    return Math.min(10, Math.max(1, d));
+  }
+}
@@ -0,0 +1,371 @@
+package com.myapp.flashcards.srs;
+
+import com.myapp.flashcards.model.FsrsParameters;
+import com.myapp.flashcards.model.ReviewAnswer;
+import com.myapp.flashcards.repository.FsrsParametersRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подбор весов FSRS по журналу повторений пользователя (repetitions).
+ * <p>
+ * Функция потерь — бинарная кросс-энтропия предсказанной вероятности вспомнить
+ * против фактического ответа (Again = забыл, остальное = вспомнил).
+ * Градиент — центральными разностями: на каждой итерации все 2P+1 наборов весов
+ * считаются за один проход по данным, проход распараллелен fork/join по диапазонам карточек.
+ * Шаг — Adam, веса после шага зажимаются в границы FsrsModel.
+ * <p>
+ * Подбор запускается через optimizeAsync: не в потоке запроса, а в ограниченном пуле задач
+ * (max-concurrent-jobs потоков, очередь queue-capacity), и не больше одного на пользователя —
+ * повторный запрос, пока подбор идёт, получает результат уже запущенного.
+ */
+@Slf4j
+@Component
+public class FsrsOptimizer {
+
+  /* Журнал пользователя по карточкам в порядке повторений; первый ответ за день отбирается при чтении */
+  private static final String HISTORY_SQL = """
+          SELECT r.card_id, r.queue, r.prev_ivl, r.answer, r.reviewed_at
+          FROM repetitions r
+                   JOIN cards c ON c.id = r.card_id
+                   JOIN collections col ON col.id = c.collection_id
+          WHERE col.user_id = ?
+          ORDER BY r.card_id, r.reviewed_at
+          """;
+
+  private static final int PARAMS = FsrsModel.DEFAULT_WEIGHTS.length;
+  private static final double EPS = 1e-6;
+  private static final double TOLERANCE = 1e-6;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final FsrsParametersRepository parametersRepository;
+  private final FsrsWeightsCache weightsCache;
+  private final ForkJoinPool pool;
+  private final ExecutorService jobs;
+  /* Идущие подборы по пользователю */
+  private final Map<Integer, CompletableFuture<FsrsParameters>> inFlight = new ConcurrentHashMap<>();
+  private final int iterations;
+  private final int minReviews;
+  private final double learningRate;
+
+  public FsrsOptimizer(JdbcTemplate jdbcTemplate,
+                       TransactionTemplate transactionTemplate,
+                       FsrsParametersRepository parametersRepository,
+                       FsrsWeightsCache weightsCache,
+                       @Value("${fsrs.optimizer.parallelism:0}") int parallelism,
+                       @Value("${fsrs.optimizer.iterations:100}") int iterations,
+                       @Value("${fsrs.optimizer.min-reviews:400}") int minReviews,
+                       @Value("${fsrs.optimizer.learning-rate:0.04}") double learningRate,
+                       @Value("${fsrs.optimizer.max-concurrent-jobs:2}") int maxConcurrentJobs,
+                       @Value("${fsrs.optimizer.queue-capacity:16}") int queueCapacity) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.parametersRepository = parametersRepository;
+    this.weightsCache = weightsCache;
+    // 0 — по числу ядер
+    this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    this.jobs = new ThreadPoolExecutor(maxConcurrentJobs, maxConcurrentJobs, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), r -> {
+      Thread t = new Thread(r, "fsrs-optimizer");
+      t.setDaemon(true);
+      return t;
+    });
+    this.iterations = iterations;
+    this.minReviews = minReviews;
+    this.learningRate = learningRate;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    jobs.shutdownNow();
+    pool.shutdownNow();
+  }
+
+  public Optional<FsrsParameters> getParameters(Integer userId) {
+    return parametersRepository.findById(userId);
+  }
+
+  /**
+   * Запускает optimize в пуле задач; если подбор для пользователя уже идёт, возвращает его.
+   *
+   * @throws RejectedExecutionException очередь задач заполнена
+   */
+  public CompletableFuture<FsrsParameters> optimizeAsync(Integer userId) {
+    CompletableFuture<FsrsParameters> job = new CompletableFuture<>();
+    CompletableFuture<FsrsParameters> running = inFlight.putIfAbsent(userId, job);
+    if (running != null) return running;
+    try {
+      jobs.execute(() -> {
+        try {
+          job.complete(optimize(userId));
+        } catch (RuntimeException e) {
+          job.completeExceptionally(e);
+        } finally {
+          inFlight.remove(userId, job);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      inFlight.remove(userId, job);
+      throw new RejectedExecutionException("Too many FSRS optimizations in progress, retry later", e);
+    }
+    return job;
+  }
+
+  /**
+   * Подбирает веса пользователя и сохраняет их в fsrs_parameters.
+   * Если повторений меньше minReviews, возвращает веса по умолчанию и ничего не сохраняет.
+   */
+  public FsrsParameters optimize(Integer userId) {
+    long started = System.nanoTime();
+    ReviewLog reviews = transactionTemplate.execute(status -> load(userId));
+    double[] start = getParameters(userId)
+            .map(FsrsParameters::getWeights)
+            .filter(w -> w.length == PARAMS)
+            .orElse(FsrsModel.DEFAULT_WEIGHTS)
+            .clone();
+
+    if (reviews.predictions() < minReviews) {
+      return new FsrsParameters(userId, FsrsModel.DEFAULT_WEIGHTS.clone(), reviews.predictions(), null, null);
+    }
+
+    double[] w = start;
+    double[] best = w.clone();
+    double bestLoss = Double.MAX_VALUE;
+    double[] m = new double[PARAMS];
+    double[] v = new double[PARAMS];
+    double beta1 = 0.9, beta2 = 0.999;
+    double prevLoss = Double.MAX_VALUE;
+
+    for (int t = 1; t <= iterations; t++) {
+      // w, затем пары (w + h·e_i, w − h·e_i) для каждого веса
+      double[][] points = new double[2 * PARAMS + 1][];
+      double[] step = new double[PARAMS];
+      points[0] = w;
+      for (int i = 0; i < PARAMS; i++) {
+        double h = 1e-4 * Math.max(1, Math.abs(w[i]));
+        double[] plus = w.clone();
+        double[] minus = w.clone();
+        plus[i] = Math.min(FsrsModel.MAX_WEIGHTS[i], w[i] + h);
+        minus[i] = Math.max(FsrsModel.MIN_WEIGHTS[i], w[i] - h);
+        step[i] = plus[i] - minus[i];
+        points[2 * i + 1] = plus;
+        points[2 * i + 2] = minus;
+      }
+
+      double[] losses = evaluate(reviews, points);
+      double loss = losses[0];
+      if (loss < bestLoss) {
+        bestLoss = loss;
+        best = w.clone();
+      }
+      if (Math.abs(prevLoss - loss) < TOLERANCE) break;   // вышли на плато
+      prevLoss = loss;
+
+      double[] next = w.clone();
+      for (int i = 0; i < PARAMS; i++) {
+        double grad = step[i] > 0 ? (losses[2 * i + 1] - losses[2 * i + 2]) / step[i] : 0;
+        m[i] = beta1 * m[i] + (1 - beta1) * grad;
+        v[i] = beta2 * v[i] + (1 - beta2) * grad * grad;
+        double mHat = m[i] / (1 - Math.pow(beta1, t));
+        double vHat = v[i] / (1 - Math.pow(beta2, t));
+        next[i] -= learningRate * mHat / (Math.sqrt(vHat) + 1e-8);
+        next[i] = Math.min(FsrsModel.MAX_WEIGHTS[i], Math.max(FsrsModel.MIN_WEIGHTS[i], next[i]));
+      }
+      w = next;
+    }
+
+    double finalLoss = evaluate(reviews, new double[][]{w})[0];
+    if (finalLoss < bestLoss) {
+      bestLoss = finalLoss;
+      best = w;
+    }
+
+    FsrsParameters saved = parametersRepository.save(
+            new FsrsParameters(userId, best, reviews.predictions(), bestLoss, LocalDateTime.now()));
+    weightsCache.invalidate(userId);
+    log.info("FSRS weights fitted: user={}, reviews={}, logLoss={}, took {} ms",
+            userId, reviews.predictions(), bestLoss, (System.nanoTime() - started) / 1_000_000);
+    return saved;
+  }
+
+  /**
+   * Средняя log loss для каждого набора весов.
+   */
+  private double[] evaluate(ReviewLog reviews, double[][] weights) {
+    FsrsModel[] models = new FsrsModel[weights.length];
+    for (int i = 0; i < weights.length; i++) models[i] = new FsrsModel(weights[i]);
+
+    double[] sums = pool.invoke(new LossTask(reviews, models, 0, reviews.cards()));
+    for (int i = 0; i < sums.length; i++) sums[i] /= reviews.predictions();
+    return sums;
+  }
+
+  /**
+   * Читает журнал курсором (fetch size), оставляя только карточки, история которых
+   * начинается с первого показа, и только первый ответ за каждый день.
+   */
+  private ReviewLog load(Integer userId) {
+    ReviewLog.Builder builder = new ReviewLog.Builder();
+    jdbcTemplate.query(con -> {
+      PreparedStatement ps = con.prepareStatement(HISTORY_SQL);
+      ps.setFetchSize(10_000);
+      ps.setInt(1, userId);
+      return ps;
+    }, rs -> {
+      builder.add(rs.getInt(1), rs.getInt(2), rs.getInt(3),
+              FsrsModel.grade(ReviewAnswer.valueOf(rs.getString(4))),
+              rs.getTimestamp(5).toLocalDateTime().toLocalDate().toEpochDay());
+    });
+    return builder.build();
+  }
+
+  /**
+   * Журнал в плоских массивах: повторения карточки i — [start[i], start[i + 1]).
+   * elapsed — дней с предыдущего повторения (у первого 0), grade — 1..4.
+   */
+  record ReviewLog(int[] start, int[] elapsed, byte[] grade, int predictions) {
+
+    int cards() {
+      return start.length - 1;
+    }
+
+    static final class Builder {
+      private int[] start = new int[1024];
+      private int[] elapsed = new int[4096];
+      private byte[] grade = new byte[4096];
+      private int cards;
+      private int size;
+      private int predictions;
+
+      private int cardId = -1;
+      private long lastDay;
+      private boolean skip;
+
+      void add(int cardId, int queue, int prevIvl, int g, long day) {
+        if (cardId != this.cardId) {
+          closeCard();
+          this.cardId = cardId;
+          // карточки, история которых в журнале начинается не с первого показа, не годятся
+          skip = queue > 1 || prevIvl != 0;
+          if (skip) return;
+          start[cards] = size;
+          push(0, g);
+          lastDay = day;
+          return;
+        }
+        if (skip || day == lastDay) return;
+        push((int) (day - lastDay), g);
+        lastDay = day;
+      }
+
+      private void push(int e, int g) {
+        if (size == elapsed.length) {
+          elapsed = Arrays.copyOf(elapsed, size * 2);
+          grade = Arrays.copyOf(grade, size * 2);
+        }
+        elapsed[size] = e;
+        grade[size] = (byte) g;
+        size++;
+      }
+
+      private void closeCard() {
+        if (cardId < 0 || skip) return;
+        int reviews = size - start[cards];
+        if (reviews < 2) {               // одна оценка — предсказывать нечего
+          size = start[cards];
+          return;
+        }
+        predictions += reviews - 1;
+        cards++;
+        if (cards + 1 >= start.length) start = Arrays.copyOf(start, start.length * 2);
+      }
+
+      ReviewLog build() {
+        closeCard();
+        start[cards] = size;
+        return new ReviewLog(Arrays.copyOf(start, cards + 1), elapsed, grade, predictions);
+      }
+    }
+  }
+
+  /**
+   * Сумма log loss по карточкам [from, to) сразу для всех моделей:
+   * данные карточки читаются один раз и остаются в кэше процессора.
+   */
+  static final class LossTask extends RecursiveTask<double[]> {
+
+    private static final int THRESHOLD = 256;
+
+    private final ReviewLog reviews;
+    private final FsrsModel[] models;
+    private final int from;
+    private final int to;
+
+    LossTask(ReviewLog reviews, FsrsModel[] models, int from, int to) {
+      this.reviews = reviews;
+      this.models = models;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected double[] compute() {
+      if (to - from <= THRESHOLD) return computeDirectly();
+      int mid = (from + to) >>> 1;
+      LossTask left = new LossTask(reviews, models, from, mid);
+      left.fork();
+      double[] right = new LossTask(reviews, models, mid, to).compute();
+      double[] result = left.join();
+      for (int i = 0; i < result.length; i++) result[i] += right[i];
+      return result;
+    }
+
+    private double[] computeDirectly() {
+      double[] loss = new double[models.length];
+      int[] start = reviews.start();
+      int[] elapsed = reviews.elapsed();
+      byte[] grade = reviews.grade();
+
+      for (int card = from; card < to; card++) {
+        int first = start[card];
+        int end = start[card + 1];
+        for (int k = 0; k < models.length; k++) {
+          FsrsModel model = models[k];
+          double s = model.initialStability(grade[first]);
+          double d = model.initialDifficulty(grade[first]);
+          double sum = 0;
+          for (int j = first + 1; j < end; j++) {
+            int g = grade[j];
+            double r = FsrsModel.retrievability(elapsed[j], s);
+            r = Math.min(1 - EPS, Math.max(EPS, r));
+            sum -= g > 1 ? Math.log(r) : Math.log(1 - r);
+            s = model.nextStability(d, s, elapsed[j], g);
+            d = model.nextDifficulty(d, g);
+          }
+          loss[k] += sum;
+        }
+      }
+      return loss;
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package com.myapp.flashcards.srs;
+
+import com.myapp.flashcards.dto.NextIntervalDto;
+import com.myapp.flashcards.model.Card;
+import com.myapp.flashcards.model.ReviewAnswer;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import static com.myapp.flashcards.model.IntervalUnit.DAY;
+import static com.myapp.flashcards.model.ReviewAnswer.*;
+
+/**
+ * Планировщик FSRS. Learning / relearning шаги, отбор due-карточек и перевод
+ * новых в learning — как в SM-2 (DefaultSrsService). Отличается интервал review-карт:
+ * он берётся из стабильности памяти (S) так, чтобы к моменту показа вероятность
+ * вспомнить опустилась до FsrsModel.DESIRED_RETENTION.
+ * Веса — персональные (FsrsOptimizer) или по умолчанию.
+ */
+@Service
+@RequiredArgsConstructor
+public class FsrsSrsService implements SrsService {
+
+  private final DefaultSrsService sm2;
+  private final FsrsWeightsCache weightsCache;
+
+  @Override
+  public void initializeLearning(Card card) {
+    sm2.initializeLearning(card);
+  }
+
+  @Override
+  public void initializeLearning(List<Card> cards) {
+    sm2.initializeLearning(cards);
+  }
+
+  @Override
+  public List<Card> getDueCards(Integer collectionId, LocalDate today, int limit) {
+    return sm2.getDueCards(collectionId, today, limit);
+  }
+
+  @Override
+  @Transactional
+  public void processReview(Card card, ReviewAnswer quality, Instant reviewedAt) {
+    if (card.getQueue() == 0) {
+      sm2.processReview(card, quality, reviewedAt);
+      return;
+    }
+
+    int today = (int) LocalDate.ofInstant(reviewedAt, ZoneId.systemDefault()).toEpochDay();
+    updateMemoryState(card, modelFor(card), FsrsModel.grade(quality), elapsedDays(card, today));
+
+    boolean wasReview = card.getQueue() == 2;
+    if (!wasReview || quality == AGAIN) {
+      // learning-шаги и переход в relearning — как в SM-2
+      sm2.processReview(card, quality, reviewedAt);
+      if (wasReview || card.getQueue() != 2) return;
+      // выпуск из learning: интервал по FSRS вместо фиксированных 1 / 4 дней
+    } else {
+      card.setReps(card.getReps() + 1);
+    }
+
+    int ivl = intervalFor(card.getStability());
+    card.setIvl(ivl);
+    card.setDue(today + ivl);
+  }
+
+  @Override
+  public List<NextIntervalDto> previewIntervals(Card card) {
+    if (card.getQueue() != 2) return sm2.previewIntervals(card);
+
+    FsrsModel model = modelFor(card);
+    double elapsed = elapsedDays(card, (int) LocalDate.now().toEpochDay());
+    double s = card.getStability() != null ? card.getStability() : seedStability(card);
+    double d = card.getDifficulty() != null ? card.getDifficulty() : model.initialDifficulty(3);
+
+    return List.of(
+            sm2.previewIntervals(card).get(0),   // Again → relearning, как в SM-2
+            new NextIntervalDto(HARD, intervalFor(model.nextStability(d, s, elapsed, 2)), DAY),
+            new NextIntervalDto(GOOD, intervalFor(model.nextStability(d, s, elapsed, 3)), DAY),
+            new NextIntervalDto(EASY, intervalFor(model.nextStability(d, s, elapsed, 4)), DAY));
+  }
+
+  // --- вспомогательные методы ---
+
+  /**
+   * Пересчитывает stability / difficulty после ответа.
+   * Первая оценка задаёт начальное состояние; карточка, пришедшая из SM-2
+   * уже в review, стартует со стабильностью, равной её текущему интервалу.
+   */
+  private void updateMemoryState(Card card, FsrsModel model, int grade, double elapsedDays) {
+    if (card.getStability() == null || card.getDifficulty() == null) {
+      if (card.getQueue() != 2) {
+        card.setStability(model.initialStability(grade));
+        card.setDifficulty(model.initialDifficulty(grade));
+        return;
+      }
+      card.setStability(seedStability(card));
+      card.setDifficulty(model.initialDifficulty(3));
+    }
+    double s = card.getStability();
+    double d = card.getDifficulty();
+    card.setStability(model.nextStability(d, s, elapsedDays, grade));
+    card.setDifficulty(model.nextDifficulty(d, grade));
+  }
+
+  private FsrsModel modelFor(Card card) {
+    // id пользователя берём из ленивого прокси без загрузки users
+    return new FsrsModel(weightsCache.forUser(card.getCollection().getUser().getId()));
+  }
+
+  /**
+   * Сколько дней прошло с прошлого показа. Для learning / relearning — 0 (тот же день).
+   */
+  private static double elapsedDays(Card card, int today) {
+    if (card.getQueue() != 2) return 0;
+    return Math.max(0, today - (card.getDue() - card.getIvl()));
+  }
+
+  private static double seedStability(Card card) {
+    return Math.max(card.getIvl(), SrsConfig.MIN_INTERVAL);
+  }
+
+  private static int intervalFor(double stability) {
+    return DefaultSrsService.constrainInterval(
+            (int) Math.round(FsrsModel.interval(stability, FsrsModel.DESIRED_RETENTION)));
+  }
+}
@@ -0,0 +1,39 @@
+package com.myapp.flashcards.srs;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.myapp.flashcards.model.FsrsParameters;
+import com.myapp.flashcards.repository.FsrsParametersRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Веса FSRS по пользователям. Оценка карточки не ходит за ними в БД:
+ * запись загружается один раз и сбрасывается оптимизатором после подбора новых весов.
+ * Пользователь без подобранных весов получает FsrsModel.DEFAULT_WEIGHTS.
+ */
+@Component
+public class FsrsWeightsCache {
+
+  private final FsrsParametersRepository parametersRepository;
+  private final Cache<Integer, double[]> cache;
+
+  public FsrsWeightsCache(FsrsParametersRepository parametersRepository,
+                          @Value("${fsrs.weights-cache.maximum-size:10000}") long maximumSize) {
+    this.parametersRepository = parametersRepository;
+    this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .build();
+  }
+
+  public double[] forUser(Integer userId) {
+    return cache.get(userId, id -> parametersRepository.findById(id)
+            .map(FsrsParameters::getWeights)
+            .filter(w -> w.length == FsrsModel.DEFAULT_WEIGHTS.length)
+            .orElse(FsrsModel.DEFAULT_WEIGHTS));
+  }
+
+  public void invalidate(Integer userId) {
+    cache.invalidate(userId);
+  }
+}
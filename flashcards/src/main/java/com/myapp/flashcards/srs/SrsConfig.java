@@ -14,4 +14,8 @@ public class SrsConfig {
   public static final int GOOD_DELAY_MIN = 600; // 10 минут
   public static final int EASY_GRADUATING_IVL = 4; // 4 дня, как в Anki
   public static final int[] LEARNING_STEPS_MIN = {1, 10}; // пример: 1 мин и 10 мин
+  public static final int LEARN_AHEAD_SEC = 20 * 60; // learning-карты показываем на 20 мин раньше, как в Anki
+  public static final int DUE_CARDS_LIMIT = 1000; // максимум карточек за одну выдачу startLearning
+  public static final int NEW_CARDS_PER_DAY = 20;  // лимиты учебной сессии по умолчанию, как в Anki
+  public static final int REVIEWS_PER_DAY = 200;
 }
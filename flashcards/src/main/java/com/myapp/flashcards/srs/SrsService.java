@@ -1,8 +1,10 @@
 package com.myapp.flashcards.srs;
 
+import com.myapp.flashcards.dto.NextIntervalDto;
 import com.myapp.flashcards.model.Card;
 import com.myapp.flashcards.model.ReviewAnswer;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -13,18 +15,39 @@ public interface SrsService {
    */
   void initializeLearning(Card card);
 
+  /**
+   * То же для набора карточек: все новые (queue=0) из списка
+   * переводятся в learning одним запросом к БД.
+   */
+  void initializeLearning(List<Card> cards);
+
   /**
    * Обрабатывает нажатие кнопки оценки (Again/Hard/Good/Easy).
    * Пересчитывает ivl, factor, reps, lapses, due, queue, stepsLeft.
    */
-  void processReview(Card card, ReviewAnswer quality);
+  default void processReview(Card card, ReviewAnswer quality) {
+    processReview(card, quality, Instant.now());
+  }
 
   /**
-   * Возвращает список карточек, которые сегодня надо показать:
+   * То же для ответа, данного в момент reviewedAt (например, офлайн):
+   * learning-шаги, просрочка и новый due отсчитываются от него, а не от текущего времени.
+   */
+  void processReview(Card card, ReviewAnswer quality, Instant reviewedAt);
+
+  /**
+   * Возвращает список карточек, которые сегодня надо показать (не больше limit):
    * – все новые (queue=new),
    * – все learning/relearning с due ≤ now,
    * – все review с dueDay ≤ today.
+   * Отбор, сортировка и ограничение выполняются в БД.
+   */
+  List<Card> getDueCards(Integer collectionId, LocalDate today, int limit);
+
+  /**
+   * Интервалы, которые получит карточка при каждом из ответов (Again/Hard/Good/Easy).
+   * Считаются по запросу — только когда клиент выбрал поле newIntervals.
    */
-  List<Card> getDueCards(Integer collectionId, LocalDate today);
+  List<NextIntervalDto> previewIntervals(Card card);
 }
 
@@ -0,0 +1,26 @@
+package com.myapp.flashcards.srs;
+
+import com.myapp.flashcards.model.Card;
+import com.myapp.flashcards.model.Collection;
+import com.myapp.flashcards.model.SchedulerType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Выбирает реализацию SrsService по планировщику коллекции.
+ */
+@Component
+@RequiredArgsConstructor
+public class SrsServiceResolver {
+
+  private final DefaultSrsService sm2;
+  private final FsrsSrsService fsrs;
+
+  public SrsService forCollection(Collection collection) {
+    return collection.getScheduler() == SchedulerType.FSRS ? fsrs : sm2;
+  }
+
+  public SrsService forCard(Card card) {
+    return forCollection(card.getCollection());
+  }
+}
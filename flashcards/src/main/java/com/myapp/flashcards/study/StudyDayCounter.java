@@ -0,0 +1,44 @@
+package com.myapp.flashcards.study;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Сколько новых и review-карточек коллекция выдала за день (таблица study_days).
+ * Учитывается момент выдачи в nextCard, а не оценки: карточка, показанная и не оценённая,
+ * лимит всё равно расходует — как и в Anki.
+ */
+@Component
+public class StudyDayCounter {
+
+  /** Выдано за день: новых и review. */
+  public record Usage(int newCount, int reviewCount) {}
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public StudyDayCounter(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public Usage get(Integer collectionId, LocalDate day) {
+    List<Usage> rows = jdbcTemplate.query(
+            "SELECT new_count, review_count FROM study_days WHERE collection_id = ? AND day = ?",
+            (rs, i) -> new Usage(rs.getInt(1), rs.getInt(2)),
+            collectionId, Date.valueOf(day));
+    return rows.isEmpty() ? new Usage(0, 0) : rows.get(0);
+  }
+
+  public void add(Integer collectionId, LocalDate day, int newCount, int reviewCount) {
+    jdbcTemplate.update("""
+            INSERT INTO study_days (collection_id, day, new_count, review_count)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (collection_id, day) DO UPDATE
+            SET new_count    = study_days.new_count + EXCLUDED.new_count,
+                review_count = study_days.review_count + EXCLUDED.review_count
+            """, collectionId, Date.valueOf(day), newCount, reviewCount);
+  }
+}
@@ -0,0 +1,107 @@
+package com.myapp.flashcards.study;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.PriorityQueue;
+
+/**
+ * Очередь учебной сессии: только id карточек, сами карточки загружаются по одной в nextCard.
+ * <p>
+ * new и review — массивы id в порядке показа (уже урезанные до дневных остатков),
+ * learning / relearn — куча по due: элемент — (due &lt;&lt; 32) | id, упорядочен по due, затем по id.
+ * Порядок выдачи как в Anki: сначала learning-карточки, чей due наступил, затем review
+ * вперемешку с новыми (новые равномерно распределены между повторениями), и только когда
+ * больше нечего показать — learning-карточки с due в пределах learn-ahead.
+ * <p>
+ * Не потокобезопасна: StudySessionService работает с сессией под её монитором.
+ */
+@Getter
+public class StudySession {
+
+  public enum Kind { NEW, REVIEW, LEARNING }
+
+  /** Выбранная карточка: для LEARNING — с due, под которым она стояла в очереди. */
+  public record Pick(int cardId, Kind kind, int due) {}
+
+  private final String id;
+  private final Integer collectionId;
+  private final LocalDate day;
+  /* сегодняшний день в единицах review-due (epoch day) */
+  private final int todayIndex;
+
+  private final int[] newIds;
+  private final int[] reviewIds;
+  private final PriorityQueue<Long> learning = new PriorityQueue<>();
+  private int newPos;
+  private int reviewPos;
+  private int reviewsSinceNew;
+  /* последняя выданная карточка и её версия на момент выдачи: после оценки (версия изменилась)
+     learning-карточка возвращается в очередь, пропущенная без оценки — нет */
+  private Integer current;
+  private Integer currentVersion;
+
+  StudySession(String id, Integer collectionId, LocalDate day, int todayIndex, int[] newIds, int[] reviewIds) {
+    this.id = id;
+    this.collectionId = collectionId;
+    this.day = day;
+    this.todayIndex = todayIndex;
+    this.newIds = newIds;
+    this.reviewIds = reviewIds;
+  }
+
+  public int getNewLeft() {
+    return newIds.length - newPos;
+  }
+
+  public int getReviewLeft() {
+    return reviewIds.length - reviewPos;
+  }
+
+  public int getLearningLeft() {
+    return learning.size();
+  }
+
+  void addLearning(int cardId, int due) {
+    learning.add(((long) due << 32) | cardId);
+  }
+
+  void setCurrent(Integer cardId, Integer version) {
+    this.current = cardId;
+    this.currentVersion = version;
+  }
+
+  /** due ближайшей learning-карточки или null, если их нет. */
+  Integer nextLearningDue() {
+    Long head = learning.peek();
+    return head == null ? null : (int) (head >>> 32);
+  }
+
+  /**
+   * Следующая карточка или null, если до learnAheadSec показывать нечего.
+   * Выбранная карточка из очереди удаляется.
+   */
+  Pick next(long nowSec, int learnAheadSec) {
+    Integer due = nextLearningDue();
+    if (due != null && due <= nowSec) return pollLearning();
+
+    int newLeft = getNewLeft();
+    int reviewLeft = getReviewLeft();
+    if (newLeft > 0 && (reviewLeft == 0 || reviewsSinceNew >= reviewLeft / newLeft)) {
+      reviewsSinceNew = 0;
+      return new Pick(newIds[newPos++], Kind.NEW, 0);
+    }
+    if (reviewLeft > 0) {
+      reviewsSinceNew++;
+      return new Pick(reviewIds[reviewPos++], Kind.REVIEW, 0);
+    }
+
+    if (due != null && due <= nowSec + learnAheadSec) return pollLearning();
+    return null;
+  }
+
+  private Pick pollLearning() {
+    long head = learning.poll();
+    return new Pick((int) head, Kind.LEARNING, (int) (head >>> 32));
+  }
+}
@@ -0,0 +1,184 @@
+package com.myapp.flashcards.study;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.myapp.flashcards.dto.StudyStep;
+import com.myapp.flashcards.model.Card;
+import com.myapp.flashcards.model.Collection;
+import com.myapp.flashcards.repository.CardRepository;
+import com.myapp.flashcards.repository.CollectionRepository;
+import com.myapp.flashcards.service.CollectionCountsCache;
+import com.myapp.flashcards.srs.DefaultSrsService;
+import com.myapp.flashcards.srs.SrsConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Учебные сессии: openSession собирает очередь id карточек одним запросом с учётом дневных лимитов
+ * коллекции, nextCard выдаёт по одной карточке — за запрос клиент получает одну карточку, а не весь список.
+ * <p>
+ * Новая карточка переводится в learning в момент выдачи, а не сразу вся колода, как в startLearning.
+ * Оценка идёт обычным reviewCard; при следующем nextCard оценённая карточка, оставшаяся в learning
+ * с due до конца дня, возвращается в очередь сессии.
+ * Сессии живут в памяти (study-sessions.ttl с последнего обращения) и действительны до конца дня.
+ */
+@Service
+public class StudySessionService {
+
+  private final CardRepository cardRepository;
+  private final CollectionRepository collectionRepository;
+  private final DefaultSrsService srsService;
+  private final CollectionCountsCache countsCache;
+  private final StudyDayCounter dayCounter;
+  private final TransactionTemplate transactionTemplate;
+  private final Cache<String, StudySession> sessions;
+
+  public StudySessionService(CardRepository cardRepository,
+                             CollectionRepository collectionRepository,
+                             DefaultSrsService srsService,
+                             CollectionCountsCache countsCache,
+                             StudyDayCounter dayCounter,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry registry,
+                             @Value("${study-sessions.maximum-size:10000}") long maximumSize,
+                             @Value("${study-sessions.ttl:PT2H}") Duration ttl) {
+    this.cardRepository = cardRepository;
+    this.collectionRepository = collectionRepository;
+    this.srsService = srsService;
+    this.countsCache = countsCache;
+    this.dayCounter = dayCounter;
+    this.transactionTemplate = transactionTemplate;
+    this.sessions = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterAccess(ttl)
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(registry, sessions, "study.sessions");
+  }
+
+  /**
+   * Открывает сессию по коллекции: learning-карточки на сегодня, review и новые —
+   * в пределах того, что осталось от дневных лимитов коллекции.
+   */
+  public StudySession openSession(Integer collectionId) {
+    Collection coll = collectionRepository.findById(collectionId)
+            .orElseThrow(() -> new RuntimeException("Collection not found"));
+    LocalDate today = LocalDate.now();
+    int todayIndex = (int) today.toEpochDay();
+    StudyDayCounter.Usage used = dayCounter.get(collectionId, today);
+
+    List<Object[]> rows = cardRepository.findSessionQueue(collectionId, dayEndSec(today), todayIndex,
+            Math.max(0, coll.getReviewsPerDay() - used.reviewCount()),
+            Math.max(0, coll.getNewCardsPerDay() - used.newCount()));
+    int[] newIds = new int[rows.size()];
+    int[] reviewIds = new int[rows.size()];
+    int newCount = 0;
+    int reviewCount = 0;
+    for (Object[] r : rows) {
+      int queue = ((Number) r[1]).intValue();
+      if (queue == 0) newIds[newCount++] = ((Number) r[0]).intValue();
+      else if (queue == 2) reviewIds[reviewCount++] = ((Number) r[0]).intValue();
+    }
+    StudySession session = new StudySession(UUID.randomUUID().toString(), collectionId, today, todayIndex,
+            Arrays.copyOf(newIds, newCount), Arrays.copyOf(reviewIds, reviewCount));
+    for (Object[] r : rows) {
+      if (isLearning(((Number) r[1]).intValue())) {
+        session.addLearning(((Number) r[0]).intValue(), ((Number) r[2]).intValue());
+      }
+    }
+
+    sessions.put(session.getId(), session);
+    return session;
+  }
+
+  /**
+   * Следующая карточка сессии. Карточки, которые с момента openSession удалили или уже оценили
+   * на другом устройстве, пропускаются.
+   */
+  public StudyStep nextCard(String sessionId) {
+    StudySession session = sessions.getIfPresent(sessionId);
+    if (session == null || !session.getDay().equals(LocalDate.now())) {
+      throw new IllegalArgumentException("Study session not found or expired");
+    }
+    synchronized (session) {
+      StudyStep step = transactionTemplate.execute(status -> next(session));
+      // версия — после коммита: перевод новой карточки в learning её уже увеличил
+      if (step.card() != null) session.setCurrent(step.card().getId(), step.card().getVersion());
+      return step;
+    }
+  }
+
+  private StudyStep next(StudySession session) {
+    long nowSec = Instant.now().getEpochSecond();
+    requeueCurrent(session);
+
+    StudySession.Pick pick;
+    while ((pick = session.next(nowSec, SrsConfig.LEARN_AHEAD_SEC)) != null) {
+      Card card = cardRepository.findById(pick.cardId()).orElse(null);
+      if (card == null) continue;
+
+      switch (pick.kind()) {
+        case NEW -> {
+          if (card.getQueue() != 0) continue;
+          srsService.initializeLearning(card);      // UPDATE при коммите, версия растёт
+          countsCache.movedToLearning(session.getCollectionId(), 1);
+          dayCounter.add(session.getCollectionId(), session.getDay(), 1, 0);
+        }
+        case REVIEW -> {
+          if (card.getQueue() != 2 || card.getDue() > session.getTodayIndex()) continue;
+          dayCounter.add(session.getCollectionId(), session.getDay(), 0, 1);
+        }
+        case LEARNING -> {
+          if (!isLearning(card.getQueue())) continue;
+          if (card.getDue() != pick.due()) {     // оценили в другом месте — встаёт в очередь под новым due
+            if (card.getDue() < dayEndSec(session.getDay())) session.addLearning(card.getId(), card.getDue());
+            continue;
+          }
+        }
+      }
+      return step(session, card, null);
+    }
+
+    Integer due = session.nextLearningDue();
+    return step(session, null, due == null ? null : (int) Math.max(0, due - nowSec - SrsConfig.LEARN_AHEAD_SEC));
+  }
+
+  /*
+   * Выданная в прошлый раз карточка после оценки могла остаться в learning — тогда она снова в очереди.
+   * Карточка, пропущенная без оценки, из сессии выбывает
+   */
+  private void requeueCurrent(StudySession session) {
+    Integer current = session.getCurrent();
+    Integer version = session.getCurrentVersion();
+    if (current == null) return;
+    session.setCurrent(null, null);
+    cardRepository.findById(current)
+            .filter(c -> !c.getVersion().equals(version))
+            .filter(c -> isLearning(c.getQueue()) && c.getDue() < dayEndSec(session.getDay()))
+            .ifPresent(c -> session.addLearning(c.getId(), c.getDue()));
+  }
+
+  private static StudyStep step(StudySession session, Card card, Integer waitSeconds) {
+    return new StudyStep(card, session.getNewLeft(), session.getLearningLeft(), session.getReviewLeft(), waitSeconds);
+  }
+
+  private static boolean isLearning(int queue) {
+    return queue == 1 || queue == 3;
+  }
+
+  /* Начало следующих суток — UNIX-время, в единицах learning-due */
+  private static int dayEndSec(LocalDate day) {
+    return (int) day.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+  }
+}
@@ -1,4 +1,16 @@
+-- Журнал повторений (аналог revlog в Anki): одна строка на каждую оценку карточки
 CREATE TABLE repetitions
 (
-
+    id          BIGSERIAL PRIMARY KEY,
+    card_id     BIGINT      NOT NULL REFERENCES cards (id) ON DELETE CASCADE,
+    queue       INTEGER     NOT NULL,          -- очередь карточки до ответа
+    answer      VARCHAR(16) NOT NULL,          -- AGAIN / HARD / GOOD / EASY
+    prev_ivl    INTEGER     NOT NULL,          -- интервал до ответа, в днях
+    new_ivl     INTEGER     NOT NULL,          -- интервал после ответа, в днях
+    factor      INTEGER     NOT NULL,          -- ease-factor после ответа
+    due         INTEGER     NOT NULL,          -- due после ответа
+    reviewed_at TIMESTAMP   NOT NULL,
+    time_taken  INTEGER                        -- время ответа в мс, если клиент его передал
 );
+
+CREATE INDEX idx_repetitions_card_reviewed_at ON repetitions (card_id, reviewed_at);
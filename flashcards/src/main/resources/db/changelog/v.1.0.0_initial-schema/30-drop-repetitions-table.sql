@@ -0,0 +1 @@
+DROP TABLE repetitions;
\ No newline at end of file
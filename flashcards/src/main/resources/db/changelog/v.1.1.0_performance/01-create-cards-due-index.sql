@@ -0,0 +1,2 @@
+-- Индекс для отбора карточек к показу: new, learning/relearn и review по due
+CREATE INDEX idx_cards_collection_queue_due ON cards (collection_id, queue, due);
@@ -0,0 +1 @@
+DROP INDEX idx_cards_collection_queue_due;
\ No newline at end of file
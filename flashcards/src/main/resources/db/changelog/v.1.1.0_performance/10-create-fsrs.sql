@@ -0,0 +1,18 @@
+-- Планировщик коллекции: SM2 (как в Anki) или FSRS
+ALTER TABLE collections
+    ADD COLUMN scheduler VARCHAR(16) NOT NULL DEFAULT 'SM2';
+
+-- Состояние памяти FSRS; NULL — карточка ещё не оценивалась под FSRS
+ALTER TABLE cards
+    ADD COLUMN stability  DOUBLE PRECISION,
+    ADD COLUMN difficulty DOUBLE PRECISION;
+
+-- Веса FSRS, подобранные оптимизатором по журналу повторений пользователя
+CREATE TABLE fsrs_parameters
+(
+    user_id      INTEGER            NOT NULL PRIMARY KEY REFERENCES users (id) ON DELETE CASCADE,
+    weights      DOUBLE PRECISION[] NOT NULL,
+    review_count INTEGER            NOT NULL,   -- сколько повторений участвовало в подборе
+    log_loss     DOUBLE PRECISION,
+    updated_at   TIMESTAMP          NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,6 @@
+DROP TABLE fsrs_parameters;
+ALTER TABLE cards
+    DROP COLUMN stability,
+    DROP COLUMN difficulty;
+ALTER TABLE collections
+    DROP COLUMN scheduler;
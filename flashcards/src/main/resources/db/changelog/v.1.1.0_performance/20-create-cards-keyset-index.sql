@@ -0,0 +1,2 @@
+-- Постраничный список карточек коллекции: keyset по (created_at, id) без OFFSET
+CREATE INDEX idx_cards_collection_created_id ON cards (collection_id, created_at, id);
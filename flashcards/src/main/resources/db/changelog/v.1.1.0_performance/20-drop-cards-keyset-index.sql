@@ -0,0 +1 @@
+DROP INDEX idx_cards_collection_created_id;
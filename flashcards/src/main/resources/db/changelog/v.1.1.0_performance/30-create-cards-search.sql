@@ -0,0 +1,27 @@
+-- Полнотекстовый поиск по cards.text.
+-- Конфигурация russian стеммирует и русские слова (russian_stem), и латиницу (english_stem),
+-- поэтому одного tsvector достаточно для смешанных русско-английских колод.
+-- Регистр кириллицы приводится по LC_CTYPE базы: она должна быть UTF-8 (ru_RU.UTF-8, en_US.UTF-8), не C.
+ALTER TABLE cards ADD COLUMN search_vector tsvector;
+
+CREATE FUNCTION cards_search_vector_update() RETURNS trigger AS $$
+BEGIN
+    NEW.search_vector := to_tsvector('russian', coalesce(NEW.text, ''));
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER cards_search_vector_insert
+    BEFORE INSERT ON cards
+    FOR EACH ROW EXECUTE FUNCTION cards_search_vector_update();
+
+-- Hibernate пишет text в каждом UPDATE карточки; пересчитываем только если текст действительно изменился
+CREATE TRIGGER cards_search_vector_update
+    BEFORE UPDATE OF text ON cards
+    FOR EACH ROW
+    WHEN (OLD.text IS DISTINCT FROM NEW.text)
+    EXECUTE FUNCTION cards_search_vector_update();
+
+UPDATE cards SET search_vector = to_tsvector('russian', coalesce(text, ''));
+
+CREATE INDEX idx_cards_search_vector ON cards USING GIN (search_vector);
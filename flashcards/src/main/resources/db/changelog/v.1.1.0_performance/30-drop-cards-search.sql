@@ -0,0 +1,5 @@
+DROP INDEX IF EXISTS idx_cards_search_vector;
+DROP TRIGGER IF EXISTS cards_search_vector_update ON cards;
+DROP TRIGGER IF EXISTS cards_search_vector_insert ON cards;
+DROP FUNCTION IF EXISTS cards_search_vector_update();
+ALTER TABLE cards DROP COLUMN IF EXISTS search_vector;
@@ -0,0 +1,46 @@
+-- MinHash-сигнатура карточки (см. com.myapp.flashcards.dedup.MinHash): значения int4 подряд, big-endian;
+-- buckets — её LSH-корзины, по ним триггер находит строки card_lsh_buckets при удалении
+CREATE TABLE card_signatures
+(
+    card_id   INTEGER  NOT NULL PRIMARY KEY REFERENCES cards (id) ON DELETE CASCADE,
+    user_id   INTEGER  NOT NULL,
+    text_hash BIGINT   NOT NULL,   -- хеш нормализованного текста: совпадение — точный дубликат
+    minhash   BYTEA    NOT NULL,
+    buckets   BIGINT[] NOT NULL
+);
+
+-- LSH-корзины: по строке на полосу сигнатуры. В хеш корзины входит id пользователя,
+-- поэтому поиск кандидатов — выборка по первичному ключу (bucket, card_id), без чужих карточек.
+-- Других индексов и внешнего ключа на cards нет намеренно: при импорте это по лишней вставке в индекс
+-- и проверке FK на каждую полосу каждой карточки. Строки удаляются триггером вместе с сигнатурой,
+-- а она — каскадом вместе с карточкой
+CREATE TABLE card_lsh_buckets
+(
+    bucket  BIGINT  NOT NULL,
+    card_id INTEGER NOT NULL,
+    PRIMARY KEY (bucket, card_id)
+);
+
+CREATE FUNCTION card_signatures_delete_buckets() RETURNS trigger AS $$
+BEGIN
+    DELETE FROM card_lsh_buckets WHERE bucket = ANY (OLD.buckets) AND card_id = OLD.card_id;
+    RETURN OLD;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER card_signatures_delete_buckets
+    AFTER DELETE ON card_signatures
+    FOR EACH ROW EXECUTE FUNCTION card_signatures_delete_buckets();
+
+-- Найденные пары: card_id — карточка, при сохранении которой пара найдена, duplicate_id — более ранняя
+CREATE TABLE card_duplicates
+(
+    id           SERIAL  PRIMARY KEY,
+    card_id      INTEGER NOT NULL REFERENCES cards (id) ON DELETE CASCADE,
+    duplicate_id INTEGER NOT NULL REFERENCES cards (id) ON DELETE CASCADE,
+    similarity   REAL    NOT NULL,
+    exact        BOOLEAN NOT NULL,
+    UNIQUE (card_id, duplicate_id)
+);
+
+CREATE INDEX idx_card_duplicates_duplicate ON card_duplicates (duplicate_id);
@@ -0,0 +1,5 @@
+DROP TABLE IF EXISTS card_duplicates;
+DROP TRIGGER IF EXISTS card_signatures_delete_buckets ON card_signatures;
+DROP FUNCTION IF EXISTS card_signatures_delete_buckets();
+DROP TABLE IF EXISTS card_lsh_buckets;
+DROP TABLE IF EXISTS card_signatures;
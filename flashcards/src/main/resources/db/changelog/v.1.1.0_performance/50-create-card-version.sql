@@ -0,0 +1,15 @@
+-- Версия строки для оптимистической блокировки (@Version в Card).
+-- DEFAULT нужен и существующим строкам, и вставкам в обход JPA (импорт через JDBC)
+ALTER TABLE cards
+    ADD COLUMN version INTEGER NOT NULL DEFAULT 0;
+
+-- Ключи идемпотентности reviewCard: повтор мутации с тем же ключом не оценивает карточку второй раз.
+-- Ключ вставляется в одной транзакции с оценкой, поэтому при откате исчезает вместе с ней
+CREATE TABLE review_requests
+(
+    idempotency_key VARCHAR(64) NOT NULL PRIMARY KEY,
+    card_id         INTEGER     NOT NULL REFERENCES cards (id) ON DELETE CASCADE,
+    created_at      TIMESTAMP   NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_review_requests_created_at ON review_requests (created_at);
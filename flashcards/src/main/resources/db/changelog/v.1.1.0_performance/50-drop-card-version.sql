@@ -0,0 +1,2 @@
+DROP TABLE IF EXISTS review_requests;
+ALTER TABLE cards DROP COLUMN IF EXISTS version;
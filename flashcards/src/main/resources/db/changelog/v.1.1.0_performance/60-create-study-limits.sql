@@ -0,0 +1,15 @@
+-- Дневные лимиты учебной сессии (как в Anki): сколько новых карточек вводить и сколько повторений показывать в день
+ALTER TABLE collections
+    ADD COLUMN new_cards_per_day INTEGER NOT NULL DEFAULT 20,
+    ADD COLUMN reviews_per_day   INTEGER NOT NULL DEFAULT 200;
+
+-- Сколько новых и review-карточек коллекция уже выдала за день — остаток лимита для следующих сессий.
+-- Строки старых дней не нужны, но и не мешают: по строке на коллекцию в день, чтение — по первичному ключу
+CREATE TABLE study_days
+(
+    collection_id INTEGER NOT NULL REFERENCES collections (id) ON DELETE CASCADE,
+    day           DATE    NOT NULL,
+    new_count     INTEGER NOT NULL DEFAULT 0,
+    review_count  INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (collection_id, day)
+);
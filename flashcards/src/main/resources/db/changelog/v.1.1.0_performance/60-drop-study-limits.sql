@@ -0,0 +1,3 @@
+DROP TABLE IF EXISTS study_days;
+ALTER TABLE collections DROP COLUMN IF EXISTS reviews_per_day;
+ALTER TABLE collections DROP COLUMN IF EXISTS new_cards_per_day;
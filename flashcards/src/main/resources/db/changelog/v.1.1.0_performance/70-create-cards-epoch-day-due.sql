@@ -0,0 +1,63 @@
+-- due review-карточек (queue = 2): был днём от создания карточки, становится абсолютным днём — числом дней с 1970-01-01
+-- (LocalDate.toEpochDay). Learning / relearn хранят UNIX-время в секундах и не меняются.
+-- Сегодняшний день один для всех коллекций, поэтому для отбора и счётчиков коллекция больше не нужна
+UPDATE cards
+SET due = due + (CAST(created_at AS date) - DATE '1970-01-01')
+WHERE queue = 2;
+
+-- то же в журнале повторений: дни — там, где due меньше любого UNIX-времени в секундах
+UPDATE repetitions r
+SET due = r.due + (CAST(c.created_at AS date) - DATE '1970-01-01')
+FROM cards c
+WHERE c.id = r.card_id
+  AND r.due < 1000000;
+
+-- Владелец карточки прямо в cards: due-карточки пользователя по всем коллекциям — один индекс (user_id, queue, due)
+ALTER TABLE cards
+    ADD COLUMN user_id INTEGER;
+
+UPDATE cards c
+SET user_id = col.user_id
+FROM collections col
+WHERE col.id = c.collection_id;
+
+ALTER TABLE cards
+    ALTER COLUMN user_id SET NOT NULL;
+
+CREATE INDEX idx_cards_user_queue_due ON cards (user_id, queue, due);
+
+-- user_id заполняется по коллекции: при вставке без него (JPA) и при переносе карточки в другую коллекцию.
+-- Импорт передаёт user_id сам — без поиска коллекции на каждую строку
+CREATE FUNCTION cards_set_user_id() RETURNS trigger AS $$
+BEGIN
+    SELECT user_id INTO NEW.user_id FROM collections WHERE id = NEW.collection_id;
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER cards_set_user_id_insert
+    BEFORE INSERT ON cards
+    FOR EACH ROW
+    WHEN (NEW.user_id IS NULL)
+    EXECUTE FUNCTION cards_set_user_id();
+
+-- JPA перечисляет collection_id в каждом UPDATE, поэтому срабатываем только на реальное изменение
+CREATE TRIGGER cards_set_user_id_update
+    BEFORE UPDATE OF collection_id ON cards
+    FOR EACH ROW
+    WHEN (OLD.collection_id IS DISTINCT FROM NEW.collection_id)
+    EXECUTE FUNCTION cards_set_user_id();
+
+-- коллекция сменила владельца — карточки за ней
+CREATE FUNCTION collections_propagate_user_id() RETURNS trigger AS $$
+BEGIN
+    UPDATE cards SET user_id = NEW.user_id WHERE collection_id = NEW.id;
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER collections_propagate_user_id
+    AFTER UPDATE OF user_id ON collections
+    FOR EACH ROW
+    WHEN (OLD.user_id IS DISTINCT FROM NEW.user_id)
+    EXECUTE FUNCTION collections_propagate_user_id();
@@ -0,0 +1,17 @@
+DROP TRIGGER IF EXISTS collections_propagate_user_id ON collections;
+DROP FUNCTION IF EXISTS collections_propagate_user_id();
+DROP TRIGGER IF EXISTS cards_set_user_id_update ON cards;
+DROP TRIGGER IF EXISTS cards_set_user_id_insert ON cards;
+DROP FUNCTION IF EXISTS cards_set_user_id();
+DROP INDEX IF EXISTS idx_cards_user_queue_due;
+ALTER TABLE cards DROP COLUMN IF EXISTS user_id;
+
+UPDATE repetitions r
+SET due = r.due - (CAST(c.created_at AS date) - DATE '1970-01-01')
+FROM cards c
+WHERE c.id = r.card_id
+  AND r.due < 1000000;
+
+UPDATE cards
+SET due = due - (CAST(created_at AS date) - DATE '1970-01-01')
+WHERE queue = 2;
@@ -0,0 +1,14 @@
+-- Счётчики коллекций, посчитанные при смене дня (DueSnapshotJob): по строке на коллекцию.
+-- В течение дня строка поддерживается дельтами с путей записи, пока day — сегодняшний;
+-- forecast[i] — сколько review-карточек станет due через i дней (на момент расчёта, дельтами не меняется)
+CREATE TABLE collection_due_snapshots
+(
+    collection_id  INTEGER   NOT NULL PRIMARY KEY REFERENCES collections (id) ON DELETE CASCADE,
+    day            DATE      NOT NULL,
+    total          INTEGER   NOT NULL,
+    new_count      INTEGER   NOT NULL,
+    learning_count INTEGER   NOT NULL,
+    review_count   INTEGER   NOT NULL,
+    forecast       INTEGER[] NOT NULL,
+    computed_at    TIMESTAMP NOT NULL DEFAULT now()
+);
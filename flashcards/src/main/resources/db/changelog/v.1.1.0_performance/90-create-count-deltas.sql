@@ -0,0 +1,15 @@
+-- Изменения счётчиков коллекций после расчёта снимка (collection_due_snapshots): по строке на изменение.
+-- Транзакция записи только добавляет строку, строку снимка не блокирует;
+-- актуальные счётчики — снимок плюс сумма его дельт. Пересчёт снимка удаляет учтённые им дельты
+CREATE TABLE collection_count_deltas
+(
+    id             BIGSERIAL PRIMARY KEY,
+    collection_id  INTEGER NOT NULL REFERENCES collections (id) ON DELETE CASCADE,
+    day            DATE    NOT NULL,
+    total          INTEGER NOT NULL,
+    new_count      INTEGER NOT NULL,
+    learning_count INTEGER NOT NULL,
+    review_count   INTEGER NOT NULL
+);
+
+CREATE INDEX idx_collection_count_deltas_collection ON collection_count_deltas (collection_id);
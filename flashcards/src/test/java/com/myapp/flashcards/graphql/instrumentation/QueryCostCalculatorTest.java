@@ -0,0 +1,69 @@
+package com.myapp.flashcards.graphql.instrumentation;
+
+import graphql.analysis.QueryComplexityCalculator;
+import graphql.execution.CoercedVariables;
+import graphql.parser.Parser;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QueryCostCalculatorTest {
+
+  private static final String SCHEMA = """
+          type Query {
+            cards(first: Int = 50, after: String): CardConnection!
+            dueCardsForUser(limit: Int = 100): [Card!]!
+            tags(first: Int): [Card!]!
+          }
+          type CardConnection { edges: [CardEdge!]! }
+          type CardEdge { node: Card! }
+          type Card { id: ID! text: String! }
+          """;
+
+  private static final int DEFAULT_LIST_SIZE = 7;
+
+  private final GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(
+          new SchemaParser().parse(SCHEMA), RuntimeWiring.newRuntimeWiring().build());
+
+  @Test
+  void explicitNullFirstCostsAsSchemaDefault() {
+    int byDefault = cost("{ cards { edges { node { id text } } } }");
+    int explicitNull = cost("{ cards(first: null) { edges { node { id text } } } }");
+    int explicitDefault = cost("{ cards(first: 50) { edges { node { id text } } } }");
+
+    assertEquals(explicitDefault, byDefault);
+    assertEquals(explicitDefault, explicitNull);
+    assertEquals(1 + 50 * (1 + 1 * (1 + 1 * 2)), explicitNull);
+  }
+
+  @Test
+  void explicitNullLimitCostsAsSchemaDefault() {
+    assertEquals(cost("{ dueCardsForUser(limit: 100) { id } }"),
+            cost("{ dueCardsForUser(limit: null) { id } }"));
+  }
+
+  @Test
+  void nullViaVariableCostsAsSchemaDefault() {
+    assertEquals(cost("{ cards(first: 50) { edges { node { id } } } }"),
+            cost("query($n: Int) { cards(first: $n) { edges { node { id } } } }"));
+  }
+
+  @Test
+  void argumentWithoutDefaultFallsBackToDefaultListSize() {
+    assertEquals(1 + DEFAULT_LIST_SIZE, cost("{ tags(first: null) { id } }"));
+  }
+
+  private int cost(String query) {
+    return QueryComplexityCalculator.newCalculator()
+            .schema(schema)
+            .fieldComplexityCalculator(new QueryCostCalculator(DEFAULT_LIST_SIZE))
+            .document(Parser.parse(query))
+            .variables(CoercedVariables.emptyVariables())
+            .build()
+            .calculate();
+  }
+}